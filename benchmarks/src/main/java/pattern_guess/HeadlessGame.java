@@ -0,0 +1,85 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * HeadlessGame class
+ * PatternGuess with the drawing and alert methods stubbed out,
+ * so the game logic can be benchmarked without a JavaFX stage
+ */
+class HeadlessGame extends PatternGuess {
+    int infoPegs; //number of info pegs that would have been drawn
+    
+    @Override
+    public InfoPeg getFeedbackPeg(InfoPeg.AvailableColor color, int feedbackSize, int rowY) {
+        infoPegs++;
+        return null;
+    }
+    
+    @Override
+    public void showInfo(String title, String text) {
+    }
+    
+    @Override
+    public void showError(String text) {
+    }
+    
+    @Override
+    public void endGame() {
+    }
+    
+    /**
+     * Builds the PatternPegs for a code
+     * @param code a packed code
+     * @param pegs the number of pegs in the code
+     * @return an array of PatternPegs
+     */
+    static PatternPeg[] toPegs(int code, int pegs) {
+        PatternPeg[] result = new PatternPeg[pegs];
+        for (int i = 0; i < pegs; i++) {
+            result[i] = PatternPeg.of(Scorer.colorAt(code, i));
+        }
+        return result;
+    }
+    
+    /**
+     * Fills the current row of a game with a code
+     * @param game a snapshot with an empty current row
+     * @param code a packed code
+     * @param pegs the number of pegs in the code
+     * @return the snapshot with the row full, ready for feedback
+     */
+    static GameSnapshot withGuess(GameSnapshot game, int code, int pegs) {
+        for (int i = 0; i < pegs; i++) {
+            game = game.withPeg(Scorer.colorAt(code, i));
+        }
+        return game;
+    }
+}
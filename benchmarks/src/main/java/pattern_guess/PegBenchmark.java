@@ -0,0 +1,124 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+
+/**
+ * PegBenchmark class
+ * Throughput of the Peg model operations used on every click
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PegBenchmark {
+    PatternPeg red;
+    PatternPeg otherRed;
+    PatternPeg white;
+    Circle circle;
+    
+    @Setup
+    public void setUp() {
+        red = PatternPeg.of(Peg.AvailableColor.RED);
+        otherRed = PatternPeg.of(Peg.AvailableColor.RED);
+        white = PatternPeg.of(Peg.AvailableColor.WHITE);
+        circle = PatternPeg.of(Peg.AvailableColor.WHITE).buildCircle();
+    }
+    
+    @Benchmark
+    public boolean equalsSameColor() {
+        return red.equals(otherRed);
+    }
+    
+    @Benchmark
+    public boolean equalsDifferentColor() {
+        return red.equals(white);
+    }
+    
+    /**
+     * Peg.AvailableColor.contains for the first color of the enum
+     */
+    @Benchmark
+    public int containsFirst() {
+        return Peg.AvailableColor.contains(Color.RED);
+    }
+    
+    /**
+     * Peg.AvailableColor.contains for the last color of the classic board
+     */
+    @Benchmark
+    public int containsLast() {
+        return Peg.AvailableColor.contains(Color.WHITE);
+    }
+    
+    /**
+     * Peg.AvailableColor.contains for a color that is not available
+     */
+    @Benchmark
+    public int containsMissing() {
+        return Peg.AvailableColor.contains(Color.CORAL);
+    }
+    
+    @Benchmark
+    public int hashCodeRed() {
+        return red.hashCode();
+    }
+    
+    /**
+     * Looking up the PatternPeg of a clicked Circle, as pegClickHandler does
+     */
+    @Benchmark
+    public PatternPeg patternPegFromCircle() {
+        return PatternPeg.of((Color)circle.getFill());
+    }
+    
+    /**
+     * Looking up the PatternPeg of a color ordinal, as newSolution does
+     */
+    @Benchmark
+    public PatternPeg patternPegFromOrdinal() {
+        return PatternPeg.of(Peg.AvailableColor.WHITE.ordinal());
+    }
+}
@@ -0,0 +1,152 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ScoringBenchmark class
+ * Throughput of scoring a guess, cycling through every code of the classic board as the guess
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+    HeadlessGame game;
+    GameSnapshot[] guesses; //the new game with each code filled in as the first row
+    PatternPeg[][] guessPegs; //every code as PatternPegs
+    PatternPeg[] solution;
+    int solutionCode;
+    int[] codes; //every code packed
+    int next;
+    
+    @Setup
+    public void setUp() {
+        game = new HeadlessGame();
+        game.newSolution();
+        CodeSpace space = game.space;
+        GameSnapshot start = game.getSnapshot();
+        solutionCode = start.getSolutionCode();
+        solution = HeadlessGame.toPegs(solutionCode, space.getPegs());
+        guesses = new GameSnapshot[space.size()];
+        guessPegs = new PatternPeg[space.size()][];
+        codes = new int[space.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = space.codeAt(i);
+            guesses[i] = HeadlessGame.withGuess(start, codes[i], space.getPegs());
+            guessPegs[i] = HeadlessGame.toPegs(codes[i], space.getPegs());
+        }
+        game.feedbackTable.score(0, 0); //build the shared table outside the measurement
+    }
+    
+    private int advance() {
+        if (++next == codes.length) next = 0;
+        return next;
+    }
+    
+    /**
+     * PatternGuess.giveFeedback, including pruning the candidates of the new snapshot
+     */
+    @Benchmark
+    public int giveFeedback() {
+        game.state.set(guesses[advance()]); //every guess is the first row, so every prune works on a full index
+        game.giveFeedback();
+        return game.getSnapshot().getCandidates().remaining() + game.infoPegs; //prune here rather than leave it to the hint thread
+    }
+    
+    /**
+     * PatternGuess.checkGuess
+     */
+    @Benchmark
+    public boolean checkGuess() {
+        game.state.set(guesses[advance()]);
+        return game.checkGuess();
+    }
+    
+    /**
+     * Scorer.score on packed codes
+     */
+    @Benchmark
+    public int scorerScore() {
+        return Scorer.score(solutionCode, codes[advance()], 4);
+    }
+    
+    /**
+     * FeedbackTable.score on code indices
+     */
+    @Benchmark
+    public int feedbackTableScore() {
+        return game.feedbackTable.score(advance(), game.solutionIndex);
+    }
+    
+    /**
+     * The original list-based giveFeedback algorithm, kept as a baseline
+     */
+    @Benchmark
+    public int legacyFeedback() {
+        PatternPeg[] guess = guessPegs[advance()];
+        int feedback = 0;
+        ArrayList<PatternPeg> guessList = new ArrayList<PatternPeg>(Arrays.asList(guess));
+        ArrayList<PatternPeg> solutionList = new ArrayList<PatternPeg>(Arrays.asList(solution));
+        for(int i=0; i<solution.length; i++) {
+            if(solution[i].equals(guess[i])) {
+                feedback += 1 << 4;
+                guessList.remove(guess[i]);
+            }
+        }
+        for(PatternPeg peg : guessList) {
+            if(pegsContainColor(solutionList, peg.getColorName()))
+                feedback++;
+        }
+        return feedback;
+    }
+    
+    /**
+     * The original PatternGuess.pegsContainColor, used by legacyFeedback
+     */
+    private static boolean pegsContainColor(ArrayList<PatternPeg> pegs, String colorName) {
+        return pegs.stream().anyMatch(peg -> (peg != null && peg.getColorName().equals(colorName)));
+    }
+}
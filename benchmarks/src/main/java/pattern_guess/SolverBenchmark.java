@@ -0,0 +1,118 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SolverBenchmark class
+ * Cost of candidate pruning and of the solvers on the classic board
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    CodeSpace space;
+    CandidateIndex candidates;
+    MinimaxSolver minimax;
+    EntropySolver entropy;
+    int opening;
+    int secret;
+    
+    @Setup
+    public void setUp() {
+        space = CodeSpace.CLASSIC;
+        candidates = new CandidateIndex(space);
+        minimax = new MinimaxSolver(space);
+        entropy = new EntropySolver(space);
+        opening = minimax.nextGuess(candidates);
+        secret = space.size() / 2;
+    }
+    
+    /**
+     * CandidateIndex.prune of a full index by the opening guess
+     */
+    @Benchmark
+    public int pruneFirstRow() {
+        candidates.reset();
+        return candidates.prune(opening, FeedbackTable.of(space).score(opening, secret));
+    }
+    
+    /**
+     * MinimaxSolver choosing the second guess
+     */
+    @Benchmark
+    public int minimaxSecondGuess() {
+        candidates.reset();
+        candidates.prune(opening, FeedbackTable.of(space).score(opening, secret));
+        return minimax.nextGuess(candidates);
+    }
+    
+    /**
+     * MinimaxSolver playing against every secret
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int[] minimaxSweep() {
+        return minimax.solveAll();
+    }
+    
+    /**
+     * EntropySolver choosing the second guess
+     */
+    @Benchmark
+    public int entropySecondGuess() {
+        candidates.reset();
+        candidates.prune(opening, FeedbackTable.of(space).score(opening, secret));
+        return entropy.nextGuess(candidates);
+    }
+    
+    /**
+     * EntropySolver playing against every secret
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int[] entropySweep() {
+        return entropy.solveAll();
+    }
+}
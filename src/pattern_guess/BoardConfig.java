@@ -0,0 +1,147 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * BoardConfig class
+ * The dimensions and rules of a board: pegs per code, available colors, guess rows,
+ * and whether a color may be repeated within a code
+ */
+public final class BoardConfig {
+    /**
+     * The classic board: 4 pegs, 6 colors, 9 rows, no repeated colors
+     */
+    public static final BoardConfig CLASSIC = new BoardConfig(4, 6, 9, false);
+    
+    private final int pegs;
+    private final int colors;
+    private final int rows;
+    private final boolean duplicates;
+    private final CodeSpace space;
+    
+    /**
+     * BoardConfig Constructor
+     * @param pegs the number of pegs in a code
+     * @param colors the number of available colors
+     * @param rows the number of guesses allowed per game
+     * @param duplicates true if a color may appear more than once in a code
+     * @throws IllegalArgumentException
+     */
+    public BoardConfig(int pegs, int colors, int rows, boolean duplicates) throws IllegalArgumentException {
+        if (rows < 1)
+            throw new IllegalArgumentException("Row count must be at least 1");
+        this.pegs = pegs;
+        this.colors = colors;
+        this.rows = rows;
+        this.duplicates = duplicates;
+        this.space = pegs == 4 && colors == 6 && !duplicates ? CodeSpace.CLASSIC : new CodeSpace(pegs, colors, duplicates); //validates pegs and colors
+    }
+    
+    /**
+     * Creates a BoardConfig from command line arguments of the form --pegs=8 --colors=12 --rows=12 --duplicates=true;
+     * other arguments are ignored and missing values are taken from the classic board
+     * @param args the command line arguments
+     * @return the BoardConfig
+     * @throws IllegalArgumentException
+     */
+    public static BoardConfig fromArgs(String[] args) throws IllegalArgumentException {
+        int pegs = CLASSIC.pegs;
+        int colors = CLASSIC.colors;
+        int rows = CLASSIC.rows;
+        boolean duplicates = CLASSIC.duplicates;
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) continue;
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            try {
+                switch (name) {
+                    case "pegs":
+                        pegs = Integer.parseInt(value);
+                        break;
+                    case "colors":
+                        colors = Integer.parseInt(value);
+                        break;
+                    case "rows":
+                        rows = Integer.parseInt(value);
+                        break;
+                    case "duplicates":
+                        duplicates = Boolean.parseBoolean(value);
+                        break;
+                }
+            }
+            catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": " + value, nfe);
+            }
+        }
+        if (pegs == CLASSIC.pegs && colors == CLASSIC.colors && rows == CLASSIC.rows && duplicates == CLASSIC.duplicates)
+            return CLASSIC;
+        return new BoardConfig(pegs, colors, rows, duplicates);
+    }
+    
+    /**
+     * @return the number of pegs in a code
+     */
+    public int getPegs() {
+        return pegs;
+    }
+    
+    /**
+     * @return the number of available colors
+     */
+    public int getColors() {
+        return colors;
+    }
+    
+    /**
+     * @return the number of guesses allowed per game
+     */
+    public int getRows() {
+        return rows;
+    }
+    
+    /**
+     * @return true if a color may appear more than once in a code
+     */
+    public boolean isDuplicates() {
+        return duplicates;
+    }
+    
+    /**
+     * @return the CodeSpace of all codes on this board
+     */
+    public CodeSpace getSpace() {
+        return space;
+    }
+    
+    @Override
+    public String toString() {
+        return space + ", " + rows + " rows";
+    }
+}
@@ -0,0 +1,221 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import javafx.animation.AnimationTimer;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * BoardRenderer class
+ * Draws the game board on a Canvas from cached images: the empty board is rendered once,
+ * and each peg color and size is rendered once as a sprite. Pegs are recorded per board row
+ * (the solution row followed by the guess rows), and flush() repaints only the rows that
+ * changed since the last flush. Changes are flushed by an AnimationTimer on the next pulse, so
+ * any number of moves made between two frames cost one repaint; the timer only runs while there
+ * is something to repaint. Every method must be called on the FX thread.
+ */
+public class BoardRenderer {
+    /**
+     * y position of the top of the board
+     */
+    public static final int TOP = 15;
+    /**
+     * Height of each board row
+     */
+    public static final int ROW_HEIGHT = 50;
+    
+    private final GraphicsContext gc;
+    private final double width;
+    private final Image background;
+    private final Row[] rows;
+    private final BitSet dirty = new BitSet();
+    private final Map<Integer, Map<Color, Image>> sprites = new HashMap<>(); //sprites by diameter, then color
+    private final SnapshotParameters transparent = new SnapshotParameters();
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop(); //until the next change
+            scheduled = false;
+            flush();
+        }
+    };
+    private boolean scheduled; //the pulse timer is running
+    
+    /**
+     * BoardRenderer Constructor
+     * @param gc the GraphicsContext of the Canvas to draw on
+     * @param guessRows the number of guess rows on the board
+     * @param painter draws the empty board, e.g. PatternGuess.setBoard
+     */
+    public BoardRenderer(GraphicsContext gc, int guessRows, Consumer<GraphicsContext> painter) {
+        this.gc = gc;
+        Canvas target = gc.getCanvas();
+        this.width = target.getWidth();
+        transparent.setFill(Color.TRANSPARENT);
+        Canvas board = new Canvas(width, target.getHeight());
+        painter.accept(board.getGraphicsContext2D());
+        this.background = board.snapshot(transparent, null);
+        this.rows = new Row[guessRows + 1];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Row();
+        }
+        markDirty(0, rows.length);
+    }
+    
+    /**
+     * Records a peg to be drawn on the next pulse
+     * @param peg the Peg to draw
+     * @param x the x location of the peg's left edge
+     * @param y the y location of the peg's top edge
+     */
+    public void drawPeg(Peg peg, double x, double y) {
+        drawPeg(peg.getColor(), peg.getDiameter(), x, y);
+    }
+    
+    /**
+     * Records a peg to be drawn on the next pulse
+     * @param color the peg color
+     * @param diameter the peg diameter
+     * @param x the x location of the peg's left edge
+     * @param y the y location of the peg's top edge
+     */
+    public void drawPeg(Color color, int diameter, double x, double y) {
+        int row = (int)((y + diameter / 2.0 - TOP) / ROW_HEIGHT); //the row holding the peg's center
+        row = Math.max(0, Math.min(rows.length - 1, row));
+        rows[row].add(sprite(color, diameter), x, y);
+        markDirty(row, row + 1);
+    }
+    
+    /**
+     * Removes every peg from the board
+     */
+    public void clear() {
+        for (Row row : rows) {
+            row.count = 0;
+        }
+        markDirty(0, rows.length);
+    }
+    
+    /**
+     * Removes the pegs from one row
+     * @param row the row number, 0 for the solution row and 1 for the first guess row
+     */
+    public void clearRow(int row) {
+        rows[row].count = 0;
+        markDirty(row, row + 1);
+    }
+    
+    /**
+     * Marks rows to be repainted on the next pulse
+     * @param from the first row
+     * @param to the row after the last
+     */
+    private void markDirty(int from, int to) {
+        dirty.set(from, to);
+        if (!scheduled) {
+            scheduled = true;
+            pulse.start();
+        }
+    }
+    
+    /**
+     * Repaints the rows that changed since the last flush straight away, rather than on the next pulse
+     */
+    public void flush() {
+        if (dirty.isEmpty()) return;
+        long start = System.nanoTime();
+        for (int r = dirty.nextSetBit(0); r >= 0; r = dirty.nextSetBit(r + 1)) {
+            double y = TOP + r * ROW_HEIGHT;
+            gc.clearRect(0, y, width, ROW_HEIGHT);
+            gc.drawImage(background, 0, y, width, ROW_HEIGHT, 0, y, width, ROW_HEIGHT); //restore the empty row
+            Row row = rows[r];
+            for (int i = 0; i < row.count; i++) {
+                gc.drawImage(row.images[i], row.xs[i], row.ys[i]);
+            }
+        }
+        dirty.clear();
+        GameMetrics.get().render().recordSince(start);
+    }
+    
+    /**
+     * Gets the cached image of a peg, rendering it the first time
+     * @param color the peg color
+     * @param diameter the peg diameter
+     * @return the image
+     */
+    private Image sprite(Color color, int diameter) {
+        Map<Color, Image> bySize = sprites.get(diameter);
+        if (bySize == null) {
+            bySize = new HashMap<>();
+            sprites.put(diameter, bySize);
+        }
+        Image image = bySize.get(color);
+        if (image == null) {
+            Canvas peg = new Canvas(diameter, diameter);
+            GraphicsContext pgc = peg.getGraphicsContext2D();
+            pgc.setFill(color);
+            pgc.fillOval(0, 0, diameter, diameter);
+            image = peg.snapshot(transparent, null);
+            bySize.put(color, image);
+        }
+        return image;
+    }
+    
+    /**
+     * Pegs recorded in one board row
+     */
+    private static class Row {
+        Image[] images = new Image[2 * Scorer.MAX_PEGS]; //room for a full guess and its info pegs
+        double[] xs = new double[images.length];
+        double[] ys = new double[images.length];
+        int count;
+        
+        void add(Image image, double x, double y) {
+            if (count == images.length) { //only reached if pegs are redrawn over each other
+                images = Arrays.copyOf(images, count * 2);
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+            }
+            images[count] = image;
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+    }
+}
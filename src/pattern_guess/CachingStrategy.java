@@ -0,0 +1,88 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * CachingStrategy class
+ * Decorator that remembers the guesses of another strategy in a SolverCache, so games that reach
+ * rows already seen skip the search. The strategy must choose its guess from the candidates alone,
+ * as the solvers do, rather than from the order of the rows or the time available. Two threads
+ * that miss on the same rows at once both ask the strategy, and the cache keeps either answer.
+ */
+public class CachingStrategy implements GuessStrategy {
+    /**
+     * Number of entries in the cache made by the single-argument constructor
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    
+    private final GuessStrategy strategy;
+    private final SolverCache cache;
+    
+    /**
+     * CachingStrategy Constructor with a cache of DEFAULT_CAPACITY entries
+     * @param strategy the strategy whose guesses are cached
+     */
+    public CachingStrategy(GuessStrategy strategy) {
+        this(strategy, new SolverCache(DEFAULT_CAPACITY));
+    }
+    
+    /**
+     * Alternate CachingStrategy Constructor
+     * @param strategy the strategy whose guesses are cached
+     * @param cache the cache, which should only be shared between strategies that make the same guesses
+     */
+    public CachingStrategy(GuessStrategy strategy, SolverCache cache) {
+        this.strategy = strategy;
+        this.cache = cache;
+    }
+    
+    /**
+     * @return the cache
+     */
+    public SolverCache getCache() {
+        return cache;
+    }
+    
+    /**
+     * Returns the cached guess for the rows so far, or asks the strategy and caches its guess
+     * @param candidates the remaining candidate secrets and the rows so far, which are not modified
+     * @return the index of the guess within the CodeSpace
+     */
+    @Override
+    public int nextGuess(CandidateIndex candidates) {
+        SolverCache.Key key = new SolverCache.Key(candidates);
+        int guess = cache.get(key);
+        if (guess < 0) {
+            guess = strategy.nextGuess(candidates);
+            cache.put(key, guess);
+        }
+        return guess;
+    }
+}
@@ -0,0 +1,203 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * CandidateIndex class
+ * The set of secrets still consistent with every row of feedback so far, kept as a bit set
+ * over the code indices of a CodeSpace. Each new row prunes the set in place, so a query
+ * never has to replay the whole history. The rows themselves are also recorded.
+ */
+public class CandidateIndex {
+    private final CodeSpace space;
+    private final FeedbackTable table;
+    private final BitSet candidates;
+    private int remaining;
+    private int[] guesses = new int[16]; //guess index for each row
+    private int[] feedback = new int[16]; //packed feedback for each row
+    private int rows;
+    
+    /**
+     * CandidateIndex Constructor
+     * @param space the CodeSpace of possible secrets
+     */
+    public CandidateIndex(CodeSpace space) {
+        this.space = space;
+        this.table = FeedbackTable.of(space);
+        this.candidates = new BitSet(space.size());
+        reset();
+    }
+    
+    /**
+     * Copy Constructor, e.g. to hand the candidates to another thread
+     * @param other the CandidateIndex to copy
+     */
+    public CandidateIndex(CandidateIndex other) {
+        this.space = other.space;
+        this.table = other.table;
+        this.candidates = (BitSet)other.candidates.clone();
+        this.remaining = other.remaining;
+        this.guesses = other.guesses.clone();
+        this.feedback = other.feedback.clone();
+        this.rows = other.rows;
+    }
+    
+    /**
+     * Makes every code a candidate again and forgets all rows
+     */
+    public final void reset() {
+        candidates.set(0, space.size());
+        remaining = space.size();
+        rows = 0;
+    }
+    
+    /**
+     * Removes the candidates that are inconsistent with a new row of feedback
+     * @param guessIndex the index of the guess within the CodeSpace
+     * @param rowFeedback the packed feedback given for the guess
+     * @return the number of candidates remaining
+     */
+    public int prune(int guessIndex, int rowFeedback) {
+        if (rows == guesses.length) { //grow the row history, which only happens on unusually long games
+            guesses = Arrays.copyOf(guesses, rows * 2);
+            feedback = Arrays.copyOf(feedback, rows * 2);
+        }
+        guesses[rows] = guessIndex;
+        feedback[rows] = rowFeedback;
+        rows++;
+        GameMetrics.get().scored(remaining);
+        if (!table.isTabulated()) { //score against the guess decoded once, rather than once per candidate
+            int guess = space.codeAt(guessIndex);
+            int pegs = space.getPegs();
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (Scorer.score(space.codeAt(i), guess, pegs) != rowFeedback) {
+                    candidates.clear(i);
+                    remaining--;
+                }
+            }
+            return remaining;
+        }
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (table.score(guessIndex, i) != rowFeedback) {
+                candidates.clear(i);
+                remaining--;
+            }
+        }
+        return remaining;
+    }
+    
+    /**
+     * @return the CodeSpace of possible secrets
+     */
+    public CodeSpace getSpace() {
+        return space;
+    }
+    
+    /**
+     * @return the number of candidates remaining
+     */
+    public int remaining() {
+        return remaining;
+    }
+    
+    /**
+     * @param index a code index
+     * @return true if the code is still a candidate
+     */
+    public boolean contains(int index) {
+        return candidates.get(index);
+    }
+    
+    /**
+     * Finds the next candidate; iterate with {@code for (int i = first(); i >= 0; i = next(i))}
+     * @param index the code index after which to search
+     * @return the next candidate code index, or -1 if there are no more
+     */
+    public int next(int index) {
+        return candidates.nextSetBit(index + 1);
+    }
+    
+    /**
+     * @return the lowest candidate code index, or -1 if there are no candidates
+     */
+    public int first() {
+        return candidates.nextSetBit(0);
+    }
+    
+    /**
+     * Passes each candidate code index to an action, in ascending order
+     * @param action the action to perform
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            action.accept(i);
+        }
+    }
+    
+    /**
+     * Copies the candidate code indices into an array, in ascending order
+     * @param dest an array with room for at least remaining() entries
+     * @return the number of indices copied
+     */
+    public int copyTo(int[] dest) {
+        int n = 0;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            dest[n++] = i;
+        }
+        return n;
+    }
+    
+    /**
+     * @return the number of rows of feedback applied so far
+     */
+    public int rows() {
+        return rows;
+    }
+    
+    /**
+     * @param row a zero-based row number
+     * @return the index of the guess made in the row
+     */
+    public int guessAt(int row) {
+        return guesses[row];
+    }
+    
+    /**
+     * @param row a zero-based row number
+     * @return the packed feedback given in the row
+     */
+    public int feedbackAt(int row) {
+        return feedback[row];
+    }
+}
@@ -0,0 +1,223 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * CodeSpace class
+ * The set of all codes for a board with a given number of pegs and colors, and whether a color
+ * may be repeated within a code. Each code has a dense zero-based index, so per-code data can be
+ * kept in flat arrays. Indices are converted to and from packed codes (see Scorer)
+ * arithmetically, without allocating.
+ */
+public final class CodeSpace {
+    /**
+     * The classic board: 4 pegs, 6 colors (those of Peg.AvailableColor), no repeated colors
+     */
+    public static final CodeSpace CLASSIC = new CodeSpace(4, 6);
+    
+    private final int pegs;
+    private final int colors;
+    private final boolean duplicates;
+    private final int size;
+    private final int[] radix; //number of codes spanned by one step of the digit at each position
+    
+    /**
+     * CodeSpace Constructor for codes without repeated colors
+     * @param pegs the number of pegs in a code
+     * @param colors the number of available colors
+     * @throws IllegalArgumentException
+     */
+    public CodeSpace(int pegs, int colors) throws IllegalArgumentException {
+        this(pegs, colors, false);
+    }
+    
+    /**
+     * Alternate CodeSpace Constructor
+     * @param pegs the number of pegs in a code
+     * @param colors the number of available colors
+     * @param duplicates true if a color may appear more than once in a code
+     * @throws IllegalArgumentException
+     */
+    public CodeSpace(int pegs, int colors, boolean duplicates) throws IllegalArgumentException {
+        if (pegs < 1 || pegs > Scorer.MAX_PEGS)
+            throw new IllegalArgumentException("Peg count must be between 1 and " + Scorer.MAX_PEGS);
+        if (colors < (duplicates ? 1 : pegs) || colors > Scorer.MAX_COLORS)
+            throw new IllegalArgumentException("Color count must be between " + (duplicates ? 1 : pegs) + " and " + Scorer.MAX_COLORS);
+        this.pegs = pegs;
+        this.colors = colors;
+        this.duplicates = duplicates;
+        this.radix = new int[pegs];
+        long count = 1;
+        for (int i = pegs - 1; i >= 0; i--) { //without duplicates, the last position has the fewest remaining colors to choose from
+            radix[i] = (int)count;
+            count *= duplicates ? colors : colors - i;
+        }
+        if (count > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many codes to index: " + count);
+        this.size = (int)count;
+    }
+    
+    /**
+     * @return the number of pegs in a code
+     */
+    public int getPegs() {
+        return pegs;
+    }
+    
+    /**
+     * @return the number of available colors
+     */
+    public int getColors() {
+        return colors;
+    }
+    
+    /**
+     * @return true if a color may appear more than once in a code
+     */
+    public boolean isDuplicates() {
+        return duplicates;
+    }
+    
+    /**
+     * @return the number of codes in this space
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Finds the code with a given index
+     * @param index a zero-based code index
+     * @return the packed code
+     */
+    public int codeAt(int index) {
+        if (duplicates) { //every position is an independent base-colors digit
+            int code = 0;
+            for (int i = 0; i < pegs; i++) {
+                int digit = index / radix[i];
+                index -= digit * radix[i];
+                code = Scorer.withColor(code, i, digit);
+            }
+            return code;
+        }
+        int code = 0;
+        int unused = (1 << colors) - 1; //bit mask of colors not yet placed in the code
+        for (int i = 0; i < pegs; i++) {
+            int digit = index / radix[i];
+            index -= digit * radix[i];
+            int color = unused;
+            for (int d = 0; d < digit; d++) {
+                color &= color - 1; //skip the lowest unused colors
+            }
+            color = Integer.numberOfTrailingZeros(color);
+            unused &= ~(1 << color);
+            code = Scorer.withColor(code, i, color);
+        }
+        return code;
+    }
+    
+    /**
+     * Finds the index of a given code
+     * @param code a packed code
+     * @return the zero-based code index, or -1 if the code is not part of this space
+     */
+    public int indexOf(int code) {
+        if (duplicates) {
+            int index = 0;
+            for (int i = 0; i < pegs; i++) {
+                int color = Scorer.colorAt(code, i);
+                if (color >= colors) return -1;
+                index += color * radix[i];
+            }
+            return index;
+        }
+        int index = 0;
+        int unused = (1 << colors) - 1;
+        for (int i = 0; i < pegs; i++) {
+            int color = Scorer.colorAt(code, i);
+            if (color >= colors || (unused & (1 << color)) == 0) return -1; //unknown or repeated color
+            index += Integer.bitCount(unused & ((1 << color) - 1)) * radix[i]; //rank of the color among those still unused
+            unused &= ~(1 << color);
+        }
+        return index;
+    }
+    
+    /**
+     * Parses a code written as one hexadecimal digit per peg, holding the color ordinal, position 0 first (e.g. "0123")
+     * @param text the code as text
+     * @return the packed code
+     * @throws IllegalArgumentException if the text is not a code in this space
+     */
+    public int parseCode(CharSequence text) throws IllegalArgumentException {
+        if (text.length() != pegs)
+            throw new IllegalArgumentException("Expected " + pegs + " pegs: " + text);
+        int code = 0;
+        for (int i = 0; i < pegs; i++) {
+            int color = Character.digit(text.charAt(i), Scorer.MAX_COLORS);
+            if (color < 0)
+                throw new IllegalArgumentException("Invalid color in code: " + text);
+            code = Scorer.withColor(code, i, color);
+        }
+        if (indexOf(code) < 0)
+            throw new IllegalArgumentException("Not a valid code for a board with " + this + ": " + text);
+        return code;
+    }
+    
+    /**
+     * Formats a code as one hexadecimal digit per peg, position 0 first; the reverse of parseCode
+     * @param code a packed code
+     * @return the code as text
+     */
+    public String formatCode(int code) {
+        char[] text = new char[pegs];
+        for (int i = 0; i < pegs; i++) {
+            text[i] = Character.forDigit(Scorer.colorAt(code, i), Scorer.MAX_COLORS);
+        }
+        return new String(text);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof CodeSpace)) return false;
+        CodeSpace cs = (CodeSpace)o;
+        return cs.pegs == pegs && cs.colors == colors && cs.duplicates == duplicates;
+    }
+    
+    @Override
+    public int hashCode() {
+        return (pegs * 31 + colors) * 2 + (duplicates ? 1 : 0);
+    }
+    
+    @Override
+    public String toString() {
+        return pegs + " pegs, " + colors + " colors, " + (duplicates ? "repeats allowed" : "no repeats");
+    }
+}
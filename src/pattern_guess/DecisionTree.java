@@ -0,0 +1,138 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * DecisionTree class
+ * A precomputed strategy, built offline by DecisionTreeBuilder, that maps every feedback
+ * history the strategy can reach to its next guess. The tree file is memory-mapped, so a
+ * lookup walks at most one node per row and needs no search and no warm-up. Games that leave
+ * the tree, because a guess other than the tree's was made, are handed to a fallback strategy.
+ * <p>
+ * The file starts with the 16 byte header "PGDT", a version, the pegs, colors and duplicates
+ * flag of the board as single bytes, one unused byte and the node count, followed by the nodes
+ * with the root first, all big-endian:
+ * <pre>
+ * NODE  int guess index, byte child count, then per child: byte feedback, int child node offset
+ * </pre>
+ * Feedback that wins the game has no child.
+ */
+public final class DecisionTree implements GuessStrategy {
+    /**
+     * The tree file looked for in the working directory when no other is given
+     */
+    public static final String DEFAULT_FILE = "pattern_guess.tree";
+    
+    static final int MAGIC = 0x50474454; //"PGDT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int NODE_SIZE = 4 + 1; //bytes before the children
+    static final int CHILD_SIZE = 1 + 4;
+    
+    private final CodeSpace space;
+    private final int nodes;
+    private final MappedByteBuffer tree;
+    private final GuessStrategy fallback;
+    
+    /**
+     * Maps a tree file into memory
+     * @param file the tree file written by DecisionTreeBuilder
+     * @param fallback the strategy used for games that leave the tree
+     * @throws IOException
+     * @throws IllegalArgumentException if the file is not a decision tree
+     */
+    public DecisionTree(Path file, GuessStrategy fallback) throws IOException, IllegalArgumentException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) { //the mapping outlives the channel
+            if (channel.size() < HEADER_SIZE + NODE_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new IllegalArgumentException(file + " is not a decision tree");
+            tree = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (tree.getInt(0) != MAGIC || tree.getInt(4) != VERSION)
+            throw new IllegalArgumentException(file + " is not a decision tree");
+        this.space = new CodeSpace(tree.get(8), tree.get(9), tree.get(10) != 0);
+        this.nodes = tree.getInt(12);
+        this.fallback = fallback;
+    }
+    
+    /**
+     * @return the CodeSpace the tree was built for
+     */
+    public CodeSpace getSpace() {
+        return space;
+    }
+    
+    /**
+     * @return the number of nodes in the tree
+     */
+    public int getNodes() {
+        return nodes;
+    }
+    
+    /**
+     * Looks up the tree's guess for the rows so far, or asks the fallback strategy if the
+     * candidates are for another space or the rows leave the tree
+     * @param candidates the remaining candidate secrets and the rows so far, which are not modified
+     * @return the index of the guess within the CodeSpace
+     */
+    @Override
+    public int nextGuess(CandidateIndex candidates) {
+        if (!candidates.getSpace().equals(space)) return fallback.nextGuess(candidates);
+        int node = HEADER_SIZE;
+        for (int row = 0; row < candidates.rows(); row++) {
+            if (tree.getInt(node) != candidates.guessAt(row)) return fallback.nextGuess(candidates);
+            node = child(node, candidates.feedbackAt(row));
+            if (node < 0) return fallback.nextGuess(candidates);
+        }
+        return tree.getInt(node);
+    }
+    
+    /**
+     * Finds the child of a node for a feedback value
+     * @param node the byte offset of the node
+     * @param feedback the packed feedback
+     * @return the byte offset of the child, or -1 if it has none
+     */
+    private int child(int node, int feedback) {
+        int children = tree.get(node + 4) & 0xFF;
+        for (int i = 0, at = node + NODE_SIZE; i < children; i++, at += CHILD_SIZE) {
+            if ((tree.get(at) & 0xFF) == feedback) {
+                int child = tree.getInt(at + 1);
+                return child >= HEADER_SIZE && child <= tree.limit() - NODE_SIZE ? child : -1; //ignore a damaged offset
+            }
+        }
+        return -1;
+    }
+}
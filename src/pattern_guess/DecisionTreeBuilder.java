@@ -0,0 +1,191 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DecisionTreeBuilder class
+ * Offline step that plays a GuessStrategy against every secret at once, following each
+ * feedback it can get, and writes the resulting tree in the DecisionTree file format.
+ * Run by "ant decision-tree" for the classic board with OptimalSolver, so the tree is the
+ * optimal strategy: no other strategy needs fewer guesses on average.
+ */
+public class DecisionTreeBuilder {
+    /**
+     * Longest game the builder follows before deciding the strategy can't win
+     */
+    static final int MAX_DEPTH = 64;
+    
+    private final CodeSpace space;
+    private final FeedbackTable table;
+    private final GuessStrategy strategy;
+    private final List<Node> nodes = new ArrayList<>(); //in file order, root first
+    private long guessTotal; //guesses needed summed over every secret
+    private int guessMax;
+    
+    /**
+     * A guess and the subtree for each feedback it can get
+     */
+    private static final class Node {
+        final int guess;
+        final int[] feedback;
+        final Node[] children;
+        int offset; //byte offset within the file
+        
+        Node(int guess, int[] feedback, Node[] children) {
+            this.guess = guess;
+            this.feedback = feedback;
+            this.children = children;
+        }
+        
+        int size() {
+            return DecisionTree.NODE_SIZE + children.length * DecisionTree.CHILD_SIZE;
+        }
+    }
+    
+    /**
+     * DecisionTreeBuilder Constructor
+     * @param space the CodeSpace to build the tree for
+     * @param strategy the strategy whose guesses the tree records; it must always guess a code of the space
+     */
+    public DecisionTreeBuilder(CodeSpace space, GuessStrategy strategy) {
+        this.space = space;
+        this.table = FeedbackTable.of(space);
+        this.strategy = strategy;
+    }
+    
+    /**
+     * Builds the tree and writes it to a file
+     * @param file the tree file, which is replaced if it exists
+     * @return the number of nodes written
+     * @throws IOException
+     * @throws IllegalStateException if the strategy fails to find a secret within MAX_DEPTH guesses
+     */
+    public int write(Path file) throws IOException, IllegalStateException {
+        nodes.clear();
+        guessTotal = 0;
+        guessMax = 0;
+        build(new CandidateIndex(space), 1);
+        int offset = DecisionTree.HEADER_SIZE;
+        for (Node node : nodes) {
+            node.offset = offset;
+            offset += node.size();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(DecisionTree.MAGIC);
+            out.writeInt(DecisionTree.VERSION);
+            out.writeByte(space.getPegs());
+            out.writeByte(space.getColors());
+            out.writeByte(space.isDuplicates() ? 1 : 0);
+            out.writeByte(0);
+            out.writeInt(nodes.size());
+            for (Node node : nodes) {
+                out.writeInt(node.guess);
+                out.writeByte(node.children.length);
+                for (int i = 0; i < node.children.length; i++) {
+                    out.writeByte(node.feedback[i]);
+                    out.writeInt(node.children[i].offset);
+                }
+            }
+        }
+        return nodes.size();
+    }
+    
+    /**
+     * @return the mean number of guesses the tree needs, over every secret, after write()
+     */
+    public double getMeanGuesses() {
+        return (double)guessTotal / space.size();
+    }
+    
+    /**
+     * @return the largest number of guesses the tree needs, after write()
+     */
+    public int getMaxGuesses() {
+        return guessMax;
+    }
+    
+    /**
+     * Adds the node for a set of candidates and, depth first, the nodes below it
+     * @param candidates the secrets consistent with the rows leading to the node
+     * @param depth the row the node's guess is made in
+     * @return the node
+     */
+    private Node build(CandidateIndex candidates, int depth) throws IllegalStateException {
+        if (depth > MAX_DEPTH)
+            throw new IllegalStateException("The strategy needs more than " + MAX_DEPTH + " guesses");
+        int guess = strategy.nextGuess(candidates);
+        int[] partitions = new int[Scorer.feedbackLimit(space.getPegs())];
+        candidates.forEach(secret -> partitions[table.score(guess, secret)]++);
+        int children = 0;
+        for (int f = 0; f < partitions.length; f++) {
+            if (partitions[f] > 0 && !Scorer.isWin(f, space.getPegs())) children++;
+        }
+        int[] feedback = new int[children];
+        Node node = new Node(guess, feedback, new Node[children]);
+        nodes.add(node);
+        if (candidates.contains(guess)) { //one secret is found in this row
+            guessTotal += depth;
+            guessMax = Math.max(guessMax, depth);
+        }
+        for (int f = 0, i = 0; f < partitions.length; f++) {
+            if (partitions[f] == 0 || Scorer.isWin(f, space.getPegs())) continue;
+            CandidateIndex next = new CandidateIndex(candidates);
+            next.prune(guess, f);
+            feedback[i] = f;
+            node.children[i++] = build(next, depth + 1);
+        }
+        return node;
+    }
+    
+    /**
+     * @param args the tree file (default DecisionTree.DEFAULT_FILE) and the strategy name (default optimal,
+     * see Simulator.strategy), optionally followed by board options such as --pegs=5 (see BoardConfig.fromArgs)
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 && !args[0].startsWith("--") ? args[0] : DecisionTree.DEFAULT_FILE);
+        String name = args.length > 1 && !args[1].startsWith("--") ? args[1] : "optimal";
+        CodeSpace space = BoardConfig.fromArgs(args).getSpace();
+        DecisionTreeBuilder builder = new DecisionTreeBuilder(space, Simulator.strategy(name, space));
+        long start = System.nanoTime();
+        int nodes = builder.write(file);
+        System.out.printf("%s: %s, %s, nodes=%d bytes=%d meanGuesses=%.4f maxGuesses=%d seconds=%.2f%n", file, space, name,
+                nodes, Files.size(file), builder.getMeanGuesses(), builder.getMaxGuesses(), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,81 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * EntropySolver class
+ * Plays the game headlessly by maximizing information: each guess is the code whose feedback
+ * partition of the remaining candidate secrets has the highest entropy, i.e. the guess expected
+ * to tell the most about the secret, preferring guesses that could themselves be the secret.
+ * It needs fewer guesses on average than MinimaxSolver, though its worst case can be longer.
+ */
+public class EntropySolver extends PartitionSolver {
+    private static final int MAX_TABULATED = 1 << 16;
+    
+    private final double[] sizeLogSize; //c * log2(c) for the partition sizes likely to occur
+    
+    /**
+     * EntropySolver Constructor using the common fork-join pool
+     * @param space the CodeSpace to solve
+     */
+    public EntropySolver(CodeSpace space) {
+        this(space, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Alternate EntropySolver Constructor
+     * @param space the CodeSpace to solve
+     * @param pool the fork-join pool on which partitions are scored
+     */
+    public EntropySolver(CodeSpace space, ForkJoinPool pool) {
+        super(space, pool);
+        sizeLogSize = new double[Math.min(space.size(), MAX_TABULATED) + 1];
+        for (int c = 2; c < sizeLogSize.length; c++) {
+            sizeLogSize[c] = c * Math.log(c) / Math.log(2);
+        }
+    }
+    
+    /**
+     * The entropy of a partition of n candidates into sizes c is log2(n) - sum(c * log2(c)) / n,
+     * so for a given n the highest entropy has the lowest sum(c * log2(c)). The sum is returned
+     * as the bits of a float, which order the same way as the non-negative values they encode.
+     * @return sum(c * log2(c)) over the partition sizes c, as float bits
+     */
+    @Override
+    protected int cost(int[] partitions, int candidates) {
+        double sum = 0;
+        for (int size : partitions) {
+            sum += size < sizeLogSize.length ? sizeLogSize[size] : size * Math.log(size) / Math.log(2);
+        }
+        return Float.floatToIntBits((float)sum);
+    }
+}
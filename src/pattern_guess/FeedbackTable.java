@@ -0,0 +1,141 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * FeedbackTable class
+ * Shared guess x secret feedback matrix for a CodeSpace, keyed by code index.
+ * The matrix is built in parallel on first use and holds one byte per pair, so scoring is
+ * a single array load. Spaces too large to tabulate fall back to scoring on the fly.
+ */
+public final class FeedbackTable {
+    /**
+     * Largest number of guess x secret pairs that will be tabulated (one byte each)
+     */
+    public static final long MAX_ENTRIES = 1L << 26;
+    
+    private static final ConcurrentHashMap<CodeSpace, FeedbackTable> SHARED = new ConcurrentHashMap<>();
+    
+    private final CodeSpace space;
+    private final int size;
+    private final int pegs;
+    private final boolean tabulated;
+    private volatile byte[] table;
+    
+    private FeedbackTable(CodeSpace space) {
+        this.space = space;
+        this.size = space.size();
+        this.pegs = space.getPegs();
+        this.tabulated = (long)size * size <= MAX_ENTRIES;
+    }
+    
+    /**
+     * Gets the shared FeedbackTable for a CodeSpace
+     * @param space the CodeSpace
+     * @return the FeedbackTable, whose matrix is not built until it is first used
+     */
+    public static FeedbackTable of(CodeSpace space) {
+        return SHARED.computeIfAbsent(space, FeedbackTable::new);
+    }
+    
+    /**
+     * @return the CodeSpace this table scores
+     */
+    public CodeSpace getSpace() {
+        return space;
+    }
+    
+    /**
+     * @return true if scores are looked up in a matrix rather than computed on the fly
+     */
+    public boolean isTabulated() {
+        return tabulated;
+    }
+    
+    /**
+     * Scores a guess against a secret
+     * @param guessIndex the index of the guess within the CodeSpace
+     * @param secretIndex the index of the secret within the CodeSpace
+     * @return the packed feedback (see Scorer)
+     */
+    public int score(int guessIndex, int secretIndex) {
+        if (!tabulated)
+            return Scorer.score(space.codeAt(secretIndex), space.codeAt(guessIndex), pegs);
+        byte[] t = table;
+        if (t == null) t = build();
+        return t[guessIndex * size + secretIndex] & 0xFF;
+    }
+    
+    /**
+     * Scores a guess against many secrets
+     * @param guessIndex the index of the guess within the CodeSpace
+     * @param secretIndices the indices of the secrets within the CodeSpace
+     * @param dest the array that receives the packed feedback for each secret, in order
+     */
+    public void scoreAll(int guessIndex, int[] secretIndices, byte[] dest) {
+        if (!tabulated) {
+            int guess = space.codeAt(guessIndex); //decode the guess once
+            for (int i = 0; i < secretIndices.length; i++) {
+                dest[i] = (byte)Scorer.score(space.codeAt(secretIndices[i]), guess, pegs);
+            }
+            return;
+        }
+        byte[] t = table;
+        if (t == null) t = build();
+        int row = guessIndex * size;
+        for (int i = 0; i < secretIndices.length; i++) {
+            dest[i] = t[row + secretIndices[i]];
+        }
+    }
+    
+    /**
+     * Builds the matrix if another thread has not already done so
+     * @return the matrix
+     */
+    private synchronized byte[] build() {
+        if (table == null) {
+            int[] codes = new int[size];
+            IntStream.range(0, size).parallel().forEach(i -> codes[i] = space.codeAt(i));
+            byte[] t = new byte[size * size];
+            IntStream.range(0, size).parallel().forEach(g -> {
+                int guess = codes[g];
+                int row = g * size;
+                for (int s = 0; s < size; s++) {
+                    t[row + s] = (byte)Scorer.score(codes[s], guess, pegs);
+                }
+            });
+            table = t;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,141 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * Game class
+ * Headless state of one game: the secret, the rows guessed so far with their feedback, and the status.
+ * It follows the same rules as PatternGuess (newGame, pegClickHandler and giveFeedback),
+ * and its methods are synchronized so a session can be shared between threads.
+ */
+public class Game {
+    /**
+     * Game statuses; REVEALED is never reached by a Game, it records that a player was shown
+     * the secret before the game was won or lost
+     */
+    public static enum Status { PLAYING, WON, LOST, REVEALED }
+    
+    private final BoardConfig config;
+    private final FeedbackTable table;
+    private final int secretIndex;
+    private final int[] guesses; //guess index for each row
+    private final int[] feedback; //packed feedback for each row
+    private int rows;
+    private Status status = Status.PLAYING;
+    
+    /**
+     * Game Constructor
+     * @param config the board to play on
+     * @param secretIndex the index of the secret within the board's CodeSpace
+     */
+    public Game(BoardConfig config, int secretIndex) {
+        this.config = config;
+        this.table = FeedbackTable.of(config.getSpace());
+        this.secretIndex = secretIndex;
+        this.guesses = new int[config.getRows()];
+        this.feedback = new int[config.getRows()];
+    }
+    
+    /**
+     * Makes a guess
+     * @param guessCode the packed guess code
+     * @return the packed feedback (see Scorer)
+     * @throws IllegalArgumentException if the guess is not a valid code for the board
+     * @throws IllegalStateException if the game is already over
+     */
+    public synchronized int guess(int guessCode) throws IllegalArgumentException, IllegalStateException {
+        if (status != Status.PLAYING)
+            throw new IllegalStateException("The game is over");
+        int guessIndex = config.getSpace().indexOf(guessCode);
+        if (guessIndex < 0)
+            throw new IllegalArgumentException("Guess is not a valid code for a board with " + config.getSpace());
+        int result = table.score(guessIndex, secretIndex);
+        GameMetrics.get().scored(1);
+        guesses[rows] = guessIndex;
+        feedback[rows] = result;
+        rows++;
+        if (Scorer.isWin(result, config.getPegs()))
+            status = Status.WON;
+        else if (rows == config.getRows()) //last possible guess has been made without winning
+            status = Status.LOST;
+        return result;
+    }
+    
+    /**
+     * @return the board being played on
+     */
+    public BoardConfig getConfig() {
+        return config;
+    }
+    
+    /**
+     * @return the index of the secret within the board's CodeSpace
+     */
+    public int getSecretIndex() {
+        return secretIndex;
+    }
+    
+    /**
+     * @return the secret as a packed code
+     */
+    public int getSecretCode() {
+        return config.getSpace().codeAt(secretIndex);
+    }
+    
+    /**
+     * @return the number of rows guessed so far
+     */
+    public synchronized int getRows() {
+        return rows;
+    }
+    
+    /**
+     * @param row a zero-based row number
+     * @return the index of the guess made in the row
+     */
+    public synchronized int getGuess(int row) {
+        return guesses[row];
+    }
+    
+    /**
+     * @param row a zero-based row number
+     * @return the packed feedback given in the row
+     */
+    public synchronized int getFeedback(int row) {
+        return feedback[row];
+    }
+    
+    /**
+     * @return the status
+     */
+    public synchronized Status getStatus() {
+        return status;
+    }
+}
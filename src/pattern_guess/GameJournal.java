@@ -0,0 +1,184 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GameJournal class
+ * Append-only binary record of games: each game's board and secret, every guess with its
+ * feedback, and the outcome. The file starts with the 8 byte header "PGJ1" and a version,
+ * followed by records of one length byte (the number of bytes after it), one type byte and
+ * a fixed payload, all big-endian:
+ * <pre>
+ * START  long session, long millis, byte pegs, byte colors, byte rows, byte duplicates, int secret code
+ * GUESS  long session, byte row, int guess code, byte feedback (exact &lt;&lt; 4 | partial)
+ * END    long session, byte status (Game.Status ordinal), byte rows
+ * </pre>
+ * Codes are packed as in Scorer. Records are buffered and written when the buffer fills, on flush()
+ * and on close(), so a crash loses at most the unflushed records, and JournalReader skips a record
+ * cut short at the end of the file. The file isn't opened until the first write.
+ */
+public class GameJournal implements Closeable {
+    static final int MAGIC = 0x50474A31; //"PGJ1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final byte START = 1;
+    static final byte GUESS = 2;
+    static final byte END = 3;
+    static final int START_SIZE = 1 + 8 + 8 + 4 + 4; //bytes after the length byte
+    static final int GUESS_SIZE = 1 + 8 + 1 + 4 + 1;
+    static final int END_SIZE = 1 + 8 + 1 + 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * A journal that records nothing, for when journaling is turned off
+     */
+    public static final GameJournal NONE = new GameJournal();
+    
+    private final Path file;
+    private final ByteBuffer buffer;
+    private FileChannel channel;
+    
+    private GameJournal() {
+        file = null;
+        buffer = null;
+    }
+    
+    /**
+     * GameJournal Constructor
+     * @param file the journal file, which is created on the first write or appended to if it exists
+     */
+    public GameJournal(Path file) {
+        this.file = file;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+    
+    /**
+     * Records the start of a game
+     * @param session the game's session id
+     * @param config the board the game is played on
+     * @param secretCode the packed secret code
+     * @throws IOException
+     */
+    public synchronized void start(long session, BoardConfig config, int secretCode) throws IOException {
+        if (file == null) return;
+        reserve(START_SIZE);
+        buffer.put((byte)START_SIZE).put(START).putLong(session).putLong(System.currentTimeMillis())
+                .put((byte)config.getPegs()).put((byte)config.getColors()).put((byte)config.getRows())
+                .put((byte)(config.isDuplicates() ? 1 : 0)).putInt(secretCode);
+    }
+    
+    /**
+     * Records a scored guess
+     * @param session the game's session id
+     * @param row the one-based row of the guess
+     * @param guessCode the packed guess code
+     * @param feedback the packed feedback
+     * @throws IOException
+     */
+    public synchronized void guess(long session, int row, int guessCode, int feedback) throws IOException {
+        if (file == null) return;
+        reserve(GUESS_SIZE);
+        buffer.put((byte)GUESS_SIZE).put(GUESS).putLong(session).put((byte)row).putInt(guessCode).put((byte)feedback);
+    }
+    
+    /**
+     * Records the end of a game
+     * @param session the game's session id
+     * @param status how the game ended: WON, LOST, REVEALED if the player was shown the secret,
+     * or PLAYING for a game that was abandoned
+     * @param rows the number of rows guessed
+     * @throws IOException
+     */
+    public synchronized void end(long session, Game.Status status, int rows) throws IOException {
+        if (file == null) return;
+        reserve(END_SIZE);
+        buffer.put((byte)END_SIZE).put(END).putLong(session).put((byte)status.ordinal()).put((byte)rows);
+    }
+    
+    /**
+     * Writes the buffered records to the file
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        if (file == null || buffer.position() == 0) return;
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header);
+            }
+            else if (!hasHeader()) {
+                channel.close();
+                channel = null;
+                throw new IOException(file + " is not a game journal");
+            }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Writes the buffered records and closes the file
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        if (channel != null) channel.close();
+        channel = null;
+    }
+    
+    /**
+     * Makes room in the buffer for a record
+     */
+    private void reserve(int size) throws IOException {
+        if (buffer.remaining() < size + 1) flush();
+    }
+    
+    private boolean hasHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            in.read(header, 0);
+        }
+        header.flip();
+        return header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+}
@@ -0,0 +1,411 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * GameLog class
+ * Asynchronous log of game events. Events are copied into a bounded ring buffer of
+ * preallocated slots and written by a background thread as one compact line each,
+ * <pre>
+ * millis EVENT session a [b feedback] [message]
+ * </pre>
+ * to a file that is rotated once it reaches a size limit (name.log, then name.1.log, name.2.log, ...).
+ * Logging never blocks: when the buffer is full the event is dropped and counted, and the writer
+ * records how many were dropped once it catches up. If the log file can't be written, events are
+ * discarded in the same way. Any thread may log; handler() bridges java.util.logging into the same buffer.
+ */
+public final class GameLog implements Closeable {
+    /**
+     * Kinds of event, and what the a and b fields of each hold
+     */
+    public static enum Event {
+        /** a new game; a is the secret index */
+        NEW_GAME, 
+        /** a scored guess; a is the row, b is the guess index, and a third field holds the packed feedback (see Scorer) */
+        GUESS, 
+        /** the game was won; a is the number of rows used */
+        WIN, 
+        /** the game was lost; a is the number of rows used */
+        LOSS, 
+        /** a java.util.logging record or other message; a is the level */
+        MESSAGE, 
+        /** events were dropped because the buffer was full; a is how many */
+        DROPPED
+    }
+    
+    /**
+     * Default number of events the buffer holds
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    /**
+     * Default size at which the log file is rotated
+     */
+    public static final long DEFAULT_MAX_BYTES = 4L << 20;
+    /**
+     * Default number of rotated files kept besides the current one
+     */
+    public static final int DEFAULT_MAX_FILES = 4;
+    /**
+     * A log that discards every event, for when logging is turned off
+     */
+    public static final GameLog NONE = new GameLog();
+    
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(); //next sequence number to hand to a producer
+    private volatile long consumed; //every sequence number below this has been written
+    private final LongAdder dropped = new LongAdder();
+    private final Path directory;
+    private final String name;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final Thread writer;
+    private volatile boolean sleeping; //the writer is parked waiting for events
+    private volatile boolean closed;
+    
+    private GameLog() {
+        ring = null;
+        mask = 0;
+        directory = null;
+        name = null;
+        maxBytes = 0;
+        maxFiles = 0;
+        writer = null;
+    }
+    
+    /**
+     * GameLog Constructor; starts the writer thread
+     * @param directory the directory of the log files, created if necessary
+     * @param name the base name of the log files
+     */
+    public GameLog(Path directory, String name) {
+        this(directory, name, DEFAULT_CAPACITY, DEFAULT_MAX_BYTES, DEFAULT_MAX_FILES);
+    }
+    
+    /**
+     * Alternate GameLog Constructor; starts the writer thread
+     * @param directory the directory of the log files, created if necessary
+     * @param name the base name of the log files
+     * @param capacity the number of events the buffer holds, rounded up to a power of two
+     * @param maxBytes the size at which the log file is rotated
+     * @param maxFiles the number of rotated files kept besides the current one
+     * @throws IllegalArgumentException
+     */
+    public GameLog(Path directory, String name, int capacity, long maxBytes, int maxFiles) throws IllegalArgumentException {
+        if (capacity < 1 || capacity > 1 << 30 || maxBytes < 1 || maxFiles < 0)
+            throw new IllegalArgumentException("Invalid log capacity, size or file count");
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot(i - size); //not yet published for its first sequence number, i
+        }
+        this.mask = size - 1;
+        this.directory = directory;
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.writer = new Thread(this::write, "GameLog " + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /**
+     * @return the working directory if it can be written to, otherwise the temporary directory
+     */
+    public static Path defaultDirectory() {
+        Path working = Paths.get("").toAbsolutePath();
+        return Files.isWritable(working) ? working : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+    
+    /**
+     * Logs the start of a game
+     * @param session the game's session id
+     * @param secretIndex the index of the secret code
+     * @return false if the event was dropped
+     */
+    public boolean newGame(long session, int secretIndex) {
+        return log(Event.NEW_GAME, session, secretIndex, 0, 0, null);
+    }
+    
+    /**
+     * Logs a scored guess
+     * @param session the game's session id
+     * @param row the one-based row of the guess
+     * @param guessIndex the index of the guess code
+     * @param feedback the packed feedback (see Scorer)
+     * @return false if the event was dropped
+     */
+    public boolean guess(long session, int row, int guessIndex, int feedback) {
+        return log(Event.GUESS, session, row, guessIndex, feedback, null);
+    }
+    
+    /**
+     * Logs the end of a game
+     * @param session the game's session id
+     * @param won whether the secret was found
+     * @param rows the number of rows used
+     * @return false if the event was dropped
+     */
+    public boolean end(long session, boolean won, int rows) {
+        return log(won ? Event.WIN : Event.LOSS, session, rows, 0, 0, null);
+    }
+    
+    /**
+     * Logs a message
+     * @param level the level of the message, e.g. Level.SEVERE.intValue()
+     * @param message the message
+     * @return false if the event was dropped
+     */
+    public boolean message(int level, String message) {
+        return log(Event.MESSAGE, 0, level, 0, 0, message);
+    }
+    
+    /**
+     * Copies an event into the buffer without waiting
+     * @return false if the event was dropped because the buffer is full or the log is closed
+     */
+    private boolean log(Event event, long session, int a, int b, int c, String message) {
+        if (writer == null) return false;
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= ring.length) { //the writer hasn't finished with this slot's last event
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        Slot slot = ring[(int) seq & mask];
+        slot.millis = System.currentTimeMillis();
+        slot.event = event;
+        slot.session = session;
+        slot.a = a;
+        slot.b = b;
+        slot.c = c;
+        slot.message = message;
+        slot.published = seq; //hand the slot to the writer
+        if (sleeping) LockSupport.unpark(writer);
+        return true;
+    }
+    
+    /**
+     * @return the number of events dropped and not yet recorded in the log
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+    
+    /**
+     * @return a Handler that copies java.util.logging records into this log
+     */
+    public Handler handler() {
+        return new Handler() {
+            {
+                setFormatter(new SimpleFormatter());
+            }
+            
+            @Override
+            public void publish(LogRecord record) {
+                if (!isLoggable(record)) return;
+                String text = getFormatter().formatMessage(record);
+                if (record.getThrown() != null) text = text == null ? record.getThrown().toString() : text + ": " + record.getThrown();
+                message(record.getLevel().intValue(), record.getLoggerName() + " " + text);
+            }
+            
+            @Override
+            public void flush() {
+            }
+            
+            @Override
+            public void close() {
+            }
+        };
+    }
+    
+    /**
+     * Writes the remaining events and stops the writer thread
+     */
+    @Override
+    public void close() {
+        if (writer == null || closed) return;
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Body of the writer thread
+     */
+    private void write() {
+        StringBuilder line = new StringBuilder(128);
+        Output out = new Output();
+        long next = 0;
+        while (true) {
+            Slot slot = ring[(int) next & mask];
+            if (slot.published == next) {
+                line.setLength(0);
+                line.append(slot.millis).append(' ').append(slot.event).append(' ').append(slot.session).append(' ').append(slot.a);
+                if (slot.event == Event.GUESS) line.append(' ').append(slot.b).append(' ').append(slot.c);
+                if (slot.message != null) line.append(' ').append(slot.message.replace('\n', ' '));
+                slot.message = null;
+                consumed = ++next; //free the slot before the write, which may be slow
+                out.write(line.append('\n'));
+                continue;
+            }
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                line.setLength(0);
+                out.write(line.append(System.currentTimeMillis()).append(' ').append(Event.DROPPED).append(" 0 ").append(lost).append('\n'));
+                continue;
+            }
+            if (closed && claimed.get() == next) break;
+            out.flush();
+            sleeping = true;
+            if (slot.published != next && !closed) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            sleeping = false;
+        }
+        out.close();
+    }
+    
+    /**
+     * One preallocated event
+     */
+    private static final class Slot {
+        volatile long published; //sequence number of the event in the slot
+        long millis;
+        Event event;
+        long session;
+        int a;
+        int b;
+        int c;
+        String message;
+        
+        Slot(long published) {
+            this.published = published;
+        }
+    }
+    
+    /**
+     * The current log file, owned by the writer thread
+     */
+    private final class Output {
+        private OutputStream stream;
+        private long bytes;
+        private boolean failed; //stop trying once the directory turns out not to be writable
+        
+        void write(CharSequence line) {
+            if (failed) return;
+            byte[] data = line.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                if (stream != null && bytes + data.length > maxBytes) {
+                    stream.close();
+                    stream = null;
+                    rotate();
+                }
+                if (stream == null) {
+                    Files.createDirectories(directory);
+                    Path file = directory.resolve(name + ".log");
+                    stream = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+                    bytes = Files.size(file);
+                }
+                stream.write(data);
+                bytes += data.length;
+            }
+            catch (IOException ioe) {
+                failed = true;
+                System.err.println("GameLog disabled: " + ioe); //can't log the failure to the log that failed
+            }
+        }
+        
+        /**
+         * Shifts name.log to name.1.log, name.1.log to name.2.log, and so on, deleting the oldest
+         */
+        private void rotate() throws IOException {
+            if (maxFiles == 0) {
+                Files.deleteIfExists(directory.resolve(name + ".log"));
+                return;
+            }
+            Files.deleteIfExists(directory.resolve(name + "." + maxFiles + ".log"));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                Path from = directory.resolve(name + "." + i + ".log");
+                if (Files.exists(from)) Files.move(from, directory.resolve(name + "." + (i + 1) + ".log"), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(directory.resolve(name + ".log"), directory.resolve(name + ".1.log"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        void flush() {
+            try {
+                if (stream != null) stream.flush();
+            }
+            catch (IOException ioe) {
+                failed = true;
+                System.err.println("GameLog disabled: " + ioe);
+            }
+        }
+        
+        void close() {
+            try {
+                if (stream != null) stream.close();
+            }
+            catch (IOException ioe) {
+                System.err.println("GameLog disabled: " + ioe);
+            }
+            stream = null;
+        }
+    }
+}
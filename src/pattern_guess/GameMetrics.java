@@ -0,0 +1,285 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * GameMetrics class
+ * Process-wide counters for games and scoring, and latency histograms for the hot paths,
+ * published over JMX as pattern_guess:type=GameMetrics and as plain text by GameServer's /metrics.
+ * Every counter is a LongAdder, so updating from many threads doesn't contend; the solvers
+ * add their scoring calls once per batch rather than once per call. Once registered, the
+ * scoring count is sampled every second, and the scoring rate is taken over the last
+ * RATE_WINDOW_SECONDS of samples, so reading it doesn't disturb other readers.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+    private static final Logger LOG = Logger.getLogger(GameMetrics.class.getName());
+    /**
+     * Name under which the metrics are registered
+     */
+    public static final String OBJECT_NAME = "pattern_guess:type=GameMetrics";
+    /**
+     * Guess counts from this up share the last bucket of the guesses per game distribution
+     */
+    public static final int MAX_GUESSES = 16;
+    /**
+     * Number of seconds over which getScoringCallsPerSecond is measured
+     */
+    public static final int RATE_WINDOW_SECONDS = 10;
+    
+    private static final GameMetrics GLOBAL = new GameMetrics();
+    private static ScheduledExecutorService sampler;
+    
+    private final LongAdder started = new LongAdder();
+    private final LongAdder won = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder[] guesses = new LongAdder[MAX_GUESSES + 1]; //finished games by guess count
+    private final LongAdder scoring = new LongAdder();
+    private final LatencyHistogram feedbackLatency = new LatencyHistogram();
+    private final LatencyHistogram solutionLatency = new LatencyHistogram();
+    private final LatencyHistogram renderLatency = new LatencyHistogram();
+    private final long[] sampleNanos = new long[RATE_WINDOW_SECONDS + 1]; //ring of sample times, one second apart
+    private final long[] sampleScoring = new long[RATE_WINDOW_SECONDS + 1]; //scoring count at each sample time
+    private int samples; //number of samples taken since the last reset
+    
+    /**
+     * GameMetrics Constructor; most code uses the shared instance from get()
+     */
+    public GameMetrics() {
+        for (int i = 0; i < guesses.length; i++) {
+            guesses[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * @return the metrics shared by the whole process
+     */
+    public static GameMetrics get() {
+        return GLOBAL;
+    }
+    
+    /**
+     * Registers the shared metrics with the platform MBeanServer, if they aren't already,
+     * and starts sampling the scoring rate
+     */
+    public static synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(GLOBAL, name);
+        }
+        catch (JMException | SecurityException ex) {
+            LOG.log(Level.WARNING, "GameMetrics not registered", ex); //the metrics still work, they just aren't visible over JMX
+        }
+        if (sampler == null) {
+            sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-sampler");
+                t.setDaemon(true);
+                return t;
+            });
+            sampler.scheduleAtFixedRate(() -> GLOBAL.sample(System.nanoTime()), 0, 1, TimeUnit.SECONDS);
+        }
+    }
+    
+    /**
+     * Counts a new game
+     */
+    public void gameStarted() {
+        started.increment();
+    }
+    
+    /**
+     * Counts a finished game
+     * @param won whether the secret was found
+     * @param guessCount the number of guesses made
+     */
+    public void gameEnded(boolean won, int guessCount) {
+        (won ? this.won : lost).increment();
+        guesses[Math.max(0, Math.min(guessCount, MAX_GUESSES))].increment();
+    }
+    
+    /**
+     * Counts scoring calls
+     * @param calls the number of guess and secret pairs scored
+     */
+    public void scored(long calls) {
+        scoring.add(calls);
+    }
+    
+    /**
+     * @return the histogram of time taken to score a guess and give its feedback
+     */
+    public LatencyHistogram feedback() {
+        return feedbackLatency;
+    }
+    
+    /**
+     * @return the histogram of time taken to draw a new solution
+     */
+    public LatencyHistogram solution() {
+        return solutionLatency;
+    }
+    
+    /**
+     * @return the histogram of time taken to repaint the board
+     */
+    public LatencyHistogram render() {
+        return renderLatency;
+    }
+    
+    @Override
+    public long getGamesStarted() {
+        return started.sum();
+    }
+    
+    @Override
+    public long getGamesWon() {
+        return won.sum();
+    }
+    
+    @Override
+    public long getGamesLost() {
+        return lost.sum();
+    }
+    
+    @Override
+    public long[] getGuessesPerGame() {
+        long[] counts = new long[guesses.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = guesses[i].sum();
+        }
+        return counts;
+    }
+    
+    @Override
+    public double getMeanGuesses() {
+        long games = 0;
+        long total = 0;
+        for (int i = 0; i < guesses.length; i++) {
+            long n = guesses[i].sum();
+            games += n;
+            total += n * i;
+        }
+        return games == 0 ? 0 : total / (double)games;
+    }
+    
+    @Override
+    public long getScoringCalls() {
+        return scoring.sum();
+    }
+    
+    @Override
+    public synchronized double getScoringCallsPerSecond() {
+        if (samples < 2) return 0;
+        int newest = (samples - 1) % sampleNanos.length;
+        int oldest = samples < sampleNanos.length ? 0 : samples % sampleNanos.length;
+        return (sampleScoring[newest] - sampleScoring[oldest]) * 1e9 / Math.max(1, sampleNanos[newest] - sampleNanos[oldest]);
+    }
+    
+    /**
+     * Records the scoring count for the scoring rate; called every second once registered
+     * @param nanos the current value of System.nanoTime()
+     */
+    synchronized void sample(long nanos) {
+        int i = samples % sampleNanos.length;
+        sampleNanos[i] = nanos;
+        sampleScoring[i] = scoring.sum();
+        samples++;
+    }
+    
+    @Override
+    public LatencyHistogram.Summary getFeedbackLatency() {
+        return feedbackLatency.summary();
+    }
+    
+    @Override
+    public LatencyHistogram.Summary getSolutionLatency() {
+        return solutionLatency.summary();
+    }
+    
+    @Override
+    public LatencyHistogram.Summary getRenderLatency() {
+        return renderLatency.summary();
+    }
+    
+    @Override
+    public synchronized void reset() {
+        started.reset();
+        won.reset();
+        lost.reset();
+        for (LongAdder g : guesses) {
+            g.reset();
+        }
+        scoring.reset();
+        feedbackLatency.reset();
+        solutionLatency.reset();
+        renderLatency.reset();
+        samples = 0;
+    }
+    
+    /**
+     * Writes every metric as plain text, one "name value" line each, in the Prometheus text format
+     * @param sb the StringBuilder to append to
+     * @return sb
+     */
+    public StringBuilder appendText(StringBuilder sb) {
+        sb.append("pattern_guess_games_started_total ").append(getGamesStarted()).append('\n');
+        sb.append("pattern_guess_games_won_total ").append(getGamesWon()).append('\n');
+        sb.append("pattern_guess_games_lost_total ").append(getGamesLost()).append('\n');
+        for (int i = 1; i < guesses.length; i++) {
+            sb.append("pattern_guess_guesses_per_game{guesses=\"").append(i).append(i == MAX_GUESSES ? "+" : "")
+                    .append("\"} ").append(guesses[i].sum()).append('\n');
+        }
+        sb.append("pattern_guess_scoring_calls_total ").append(getScoringCalls()).append('\n');
+        appendText(sb, "feedback", feedbackLatency.summary());
+        appendText(sb, "solution", solutionLatency.summary());
+        appendText(sb, "render", renderLatency.summary());
+        return sb;
+    }
+    
+    private static void appendText(StringBuilder sb, String name, LatencyHistogram.Summary s) {
+        String metric = "pattern_guess_" + name + "_latency_micros";
+        sb.append(metric).append("{quantile=\"0.5\"} ").append(s.getP50Micros()).append('\n');
+        sb.append(metric).append("{quantile=\"0.9\"} ").append(s.getP90Micros()).append('\n');
+        sb.append(metric).append("{quantile=\"0.99\"} ").append(s.getP99Micros()).append('\n');
+        sb.append(metric).append("{quantile=\"1\"} ").append(s.getMaxMicros()).append('\n');
+        sb.append(metric).append("_count ").append(s.getCount()).append('\n');
+    }
+}
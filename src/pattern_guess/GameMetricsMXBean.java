@@ -0,0 +1,92 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * GameMetricsMXBean interface
+ * Management interface of GameMetrics, registered as pattern_guess:type=GameMetrics
+ */
+public interface GameMetricsMXBean {
+    /**
+     * @return the number of games started
+     */
+    long getGamesStarted();
+    
+    /**
+     * @return the number of games won
+     */
+    long getGamesWon();
+    
+    /**
+     * @return the number of games lost
+     */
+    long getGamesLost();
+    
+    /**
+     * @return the number of finished games by the number of guesses they took; the last element counts
+     * every game that took at least that many
+     */
+    long[] getGuessesPerGame();
+    
+    /**
+     * @return the mean number of guesses per finished game
+     */
+    double getMeanGuesses();
+    
+    /**
+     * @return the number of guess and secret pairs scored
+     */
+    long getScoringCalls();
+    
+    /**
+     * @return the number of scoring calls per second over the last GameMetrics.RATE_WINDOW_SECONDS seconds
+     */
+    double getScoringCallsPerSecond();
+    
+    /**
+     * @return the time taken to score a guess and give its feedback
+     */
+    LatencyHistogram.Summary getFeedbackLatency();
+    
+    /**
+     * @return the time taken to draw a new solution
+     */
+    LatencyHistogram.Summary getSolutionLatency();
+    
+    /**
+     * @return the time taken to repaint the board
+     */
+    LatencyHistogram.Summary getRenderLatency();
+    
+    /**
+     * Sets every counter and histogram back to zero
+     */
+    void reset();
+}
@@ -0,0 +1,584 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * GameServer class
+ * Headless server hosting many independent game sessions through a small HTTP/JSON API
+ * on a single non-blocking selector thread. Sessions are kept in a ConcurrentHashMap,
+ * so other threads can read them without locking the whole table.
+ * <pre>
+ * POST   /games                  start a game           {"id":1,"pegs":4,"colors":6,"rows":9,"duplicates":false}
+ * POST   /games/{id}/guess/{code} guess, e.g. code 0123  {"row":1,"exact":1,"partial":2,"status":"PLAYING"}
+ * GET    /games/{id}             rows and status so far
+ * DELETE /games/{id}             end the session
+ * GET    /metrics                game and scoring metrics as plain text (see GameMetrics)
+ * </pre>
+ * Codes are written as one hexadecimal color ordinal per peg (see CodeSpace.parseCode); the secret
+ * is included in responses once the game is over. With a SessionStore, every session is persisted
+ * as it is played and sessions from earlier runs are resumed on first use.
+ */
+public class GameServer implements Runnable {
+    private static final Logger LOG = Logger.getLogger(GameServer.class.getName());
+    /**
+     * Largest request head, in bytes, that will be accepted
+     */
+    static final int MAX_REQUEST = 8192;
+    
+    private final BoardConfig config;
+    private final SecretGenerator secrets;
+    private final ConcurrentHashMap<Long, Game> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final SessionStore store;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private volatile GameLog gameLog = GameLog.NONE;
+    private volatile GameJournal journal = GameJournal.NONE;
+    private volatile boolean running = true;
+    
+    /**
+     * GameServer Constructor; call run() or start a thread with it to begin serving
+     * @param config the board every session plays on
+     * @param secrets the generator of each session's secret
+     * @param port the local port to listen on, or 0 for any free port
+     * @throws IOException
+     */
+    public GameServer(BoardConfig config, SecretGenerator secrets, int port) throws IOException {
+        this(config, secrets, port, null);
+    }
+    
+    /**
+     * Alternate GameServer Constructor
+     * @param config the board every session plays on
+     * @param secrets the generator of each session's secret
+     * @param port the local port to listen on, or 0 for any free port
+     * @param store the store in which sessions are persisted, or null to keep them in memory only
+     * @throws IOException
+     */
+    public GameServer(BoardConfig config, SecretGenerator secrets, int port, SessionStore store) throws IOException {
+        this.config = config;
+        this.secrets = secrets;
+        this.store = store;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+    
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+    
+    /**
+     * @param gameLog the log to record game events in, or GameLog.NONE
+     */
+    public void setGameLog(GameLog gameLog) {
+        this.gameLog = gameLog;
+    }
+    
+    /**
+     * @param journal the journal to record every game in, or GameJournal.NONE
+     */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * @return the number of sessions currently held
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+    
+    /**
+     * Stops the server and closes every connection
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+    
+    /**
+     * Serves requests until stop() is called
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        else {
+                            if (key.isReadable()) read(key);
+                            if (key.isValid() && key.isWritable()) write(key);
+                        }
+                    }
+                    catch (IOException ioe) { //the client went away
+                        close(key);
+                    }
+                }
+            }
+        }
+        catch (IOException ioe) {
+            LOG.log(Level.SEVERE, null, ioe);
+        }
+        finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ioe) {
+                LOG.log(Level.SEVERE, null, ioe);
+            }
+        }
+    }
+    
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+    
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ioe) {
+            LOG.log(Level.FINE, null, ioe);
+        }
+    }
+    
+    /**
+     * Reads available bytes and answers every complete request among them
+     */
+    private void read(SelectionKey key) throws IOException {
+        Connection c = (Connection)key.attachment();
+        if (((SocketChannel)key.channel()).read(c.in) < 0) {
+            close(key);
+            return;
+        }
+        int headEnd;
+        while ((headEnd = findHeadEnd(c.in)) >= 0) {
+            String head = new String(c.in.array(), 0, headEnd, StandardCharsets.ISO_8859_1);
+            String lowerHead = head.toLowerCase();
+            int length = headerInt(lowerHead, "content-length");
+            int total = headEnd + 4 + Math.max(length, 0);
+            if (total > c.in.capacity()) {
+                respond(c, 413, "{\"error\":\"Request too large\"}");
+                c.close = true;
+                break;
+            }
+            if (c.in.position() < total) break; //wait for the rest of the body, which is not used
+            int lineEnd = head.indexOf("\r\n");
+            String requestLine = lineEnd < 0 ? head : head.substring(0, lineEnd);
+            if (lowerHead.contains("\r\nconnection: close") || requestLine.endsWith("HTTP/1.0"))
+                c.close = true;
+            handle(c, requestLine);
+            c.in.flip();
+            c.in.position(total);
+            c.in.compact(); //keep any pipelined request that follows
+        }
+        if (headEnd < 0 && !c.in.hasRemaining()) { //the head doesn't fit in the buffer
+            respond(c, 431, "{\"error\":\"Request head too large\"}");
+            c.close = true;
+        }
+        write(key);
+    }
+    
+    /**
+     * Writes pending responses, waiting for the socket to drain before reading more requests
+     */
+    private void write(SelectionKey key) throws IOException {
+        Connection c = (Connection)key.attachment();
+        c.out.flip();
+        ((SocketChannel)key.channel()).write(c.out);
+        boolean drained = !c.out.hasRemaining();
+        c.out.compact();
+        if (drained && c.close) {
+            close(key);
+            return;
+        }
+        key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+    }
+    
+    /**
+     * Routes a request to the session table
+     * @param c the connection to respond on
+     * @param requestLine the request line, e.g. GET /games/1 HTTP/1.1
+     */
+    private void handle(Connection c, String requestLine) {
+        int firstSpace = requestLine.indexOf(' ');
+        int secondSpace = requestLine.indexOf(' ', firstSpace + 1);
+        if (firstSpace < 0 || secondSpace < 0) {
+            respond(c, 400, "{\"error\":\"Malformed request\"}");
+            c.close = true;
+            return;
+        }
+        String method = requestLine.substring(0, firstSpace);
+        String[] path = requestLine.substring(firstSpace + 1, secondSpace).split("/");
+        GameMetrics metrics = GameMetrics.get();
+        try {
+            if (path.length == 2 && path[1].equals("metrics") && method.equals("GET")) {
+                respond(c, 200, "text/plain; version=0.0.4", metrics.appendText(new StringBuilder(2048)).toString());
+                return;
+            }
+            if (path.length == 2 && path[1].equals("games") && method.equals("POST")) {
+                long start = System.nanoTime();
+                int secret;
+                synchronized (secrets) {
+                    secret = secrets.nextIndex();
+                }
+                metrics.solution().recordSince(start);
+                long id = store == null ? nextId.getAndIncrement() : store.create(secret);
+                sessions.put(id, new Game(config, secret));
+                gameLog.newGame(id, secret);
+                metrics.gameStarted();
+                try {
+                    journal.start(id, config, config.getSpace().codeAt(secret));
+                }
+                catch (IOException ioe) {
+                    journalFailed(ioe);
+                }
+                respond(c, 201, "{\"id\":" + id + ",\"pegs\":" + config.getPegs() + ",\"colors\":" + config.getColors()
+                        + ",\"rows\":" + config.getRows() + ",\"duplicates\":" + config.isDuplicates() + "}");
+                return;
+            }
+            if (path.length < 3 || !path[1].equals("games")) {
+                respond(c, 404, "{\"error\":\"Not found\"}");
+                return;
+            }
+            long id = Long.parseLong(path[2]);
+            Game game = sessions.get(id);
+            if (game == null && store != null && (game = store.load(id)) != null) {
+                sessions.put(id, game); //resume a session from an earlier run
+            }
+            if (game == null) {
+                respond(c, 404, "{\"error\":\"No such game\"}");
+            }
+            else if (path.length == 3 && method.equals("GET")) {
+                respond(c, 200, toJson(id, game));
+            }
+            else if (path.length == 3 && method.equals("DELETE")) {
+                sessions.remove(id);
+                if (store != null) store.delete(id);
+                respond(c, 200, "{\"id\":" + id + "}");
+            }
+            else if (path.length == 5 && path[3].equals("guess") && method.equals("POST")) {
+                int feedback;
+                try {
+                    long start = System.nanoTime();
+                    int guessCode = config.getSpace().parseCode(path[4]);
+                    feedback = game.guess(guessCode);
+                    metrics.feedback().recordSince(start);
+                    journalGuess(id, game, guessCode, feedback);
+                    if (store != null) store.append(id, game.getGuess(game.getRows() - 1), feedback, game.getStatus());
+                    gameLog.guess(id, game.getRows(), game.getGuess(game.getRows() - 1), feedback);
+                    if (game.getStatus() != Game.Status.PLAYING) {
+                        gameLog.end(id, game.getStatus() == Game.Status.WON, game.getRows());
+                        metrics.gameEnded(game.getStatus() == Game.Status.WON, game.getRows());
+                    }
+                }
+                catch (IllegalStateException ise) {
+                    respondError(c, 409, ise.getMessage() != null ? ise.getMessage() : "Game is over");
+                    return;
+                }
+                StringBuilder sb = new StringBuilder(96).append("{\"row\":").append(game.getRows())
+                        .append(",\"exact\":").append(Scorer.exact(feedback))
+                        .append(",\"partial\":").append(Scorer.partial(feedback));
+                appendStatus(sb, game);
+                respond(c, 200, sb.append('}').toString());
+            }
+            else {
+                respond(c, 405, "{\"error\":\"Method not allowed\"}");
+            }
+        }
+        catch (IllegalArgumentException iae) { //includes NumberFormatException for a bad id
+            respondError(c, 400, iae.getMessage() != null ? iae.getMessage() : "Bad request");
+        }
+        catch (IOException ioe) {
+            LOG.log(Level.SEVERE, null, ioe);
+            respond(c, 500, "{\"error\":\"Session store failure\"}");
+        }
+    }
+    
+    /**
+     * Records a guess, and the outcome if it ended the game, in the journal
+     */
+    private void journalGuess(long id, Game game, int guessCode, int feedback) {
+        try {
+            journal.guess(id, game.getRows(), guessCode, feedback);
+            if (game.getStatus() != Game.Status.PLAYING) journal.end(id, game.getStatus(), game.getRows());
+        }
+        catch (IOException ioe) {
+            journalFailed(ioe);
+        }
+    }
+    
+    /**
+     * Stops journaling after the journal couldn't be written, so sessions can go on without it
+     */
+    private void journalFailed(IOException ioe) {
+        LOG.log(Level.SEVERE, "Journal disabled", ioe);
+        journal = GameJournal.NONE;
+    }
+    
+    /**
+     * @param id the session id
+     * @param game the session
+     * @return the session's rows and status as JSON
+     */
+    private String toJson(long id, Game game) {
+        CodeSpace space = config.getSpace();
+        StringBuilder sb = new StringBuilder(64 + 48 * game.getRows()).append("{\"id\":").append(id).append(",\"rows\":[");
+        synchronized (game) {
+            for (int r = 0; r < game.getRows(); r++) {
+                if (r > 0) sb.append(',');
+                sb.append("{\"guess\":\"").append(space.formatCode(space.codeAt(game.getGuess(r))))
+                        .append("\",\"exact\":").append(Scorer.exact(game.getFeedback(r)))
+                        .append(",\"partial\":").append(Scorer.partial(game.getFeedback(r))).append('}');
+            }
+            sb.append(']');
+            appendStatus(sb, game);
+        }
+        return sb.append('}').toString();
+    }
+    
+    /**
+     * Appends the status, and the secret if the game is over
+     */
+    private void appendStatus(StringBuilder sb, Game game) {
+        Game.Status status = game.getStatus();
+        sb.append(",\"status\":\"").append(status).append('"');
+        if (status != Game.Status.PLAYING)
+            sb.append(",\"secret\":\"").append(config.getSpace().formatCode(game.getSecretCode())).append('"');
+    }
+    
+    /**
+     * Queues a JSON response on a connection
+     */
+    private void respond(Connection c, int status, String json) {
+        respond(c, status, "application/json", json);
+    }
+    
+    /**
+     * Queues a JSON error response on a connection
+     */
+    private void respondError(Connection c, int status, String message) {
+        respond(c, status, appendJsonString(new StringBuilder(32 + message.length()).append("{\"error\":"), message).append('}').toString());
+    }
+    
+    /**
+     * Appends a string as a quoted JSON string, escaping quotes, backslashes and control characters
+     * @param sb the StringBuilder to append to
+     * @param text the string
+     * @return sb
+     */
+    static StringBuilder appendJsonString(StringBuilder sb, String text) {
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20 || ch == 0x2028 || ch == 0x2029) //other control characters, and separators JavaScript doesn't allow in strings
+                        sb.append(String.format("\\u%04x", (int)ch));
+                    else
+                        sb.append(ch);
+            }
+        }
+        return sb.append('"');
+    }
+    
+    /**
+     * Queues a response on a connection
+     */
+    private void respond(Connection c, int status, String contentType, String text) {
+        byte[] body = text.getBytes(StandardCharsets.ISO_8859_1);
+        String head = "HTTP/1.1 " + status + " " + reason(status) + "\r\nContent-Type: " + contentType + "\r\nContent-Length: "
+                + body.length + (c.close ? "\r\nConnection: close" : "") + "\r\n\r\n";
+        c.ensureOutput(head.length() + body.length);
+        c.out.put(head.getBytes(StandardCharsets.ISO_8859_1)).put(body);
+    }
+    
+    private static String reason(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 201: return "Created";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 409: return "Conflict";
+            case 413: return "Payload Too Large";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            default: return "Error";
+        }
+    }
+    
+    /**
+     * @param in a buffer in write mode
+     * @return the offset of the blank line ending the request head, or -1 if it hasn't arrived yet
+     */
+    private static int findHeadEnd(ByteBuffer in) {
+        byte[] b = in.array();
+        for (int i = 0, end = in.position() - 3; i < end; i++) {
+            if (b[i] == '\r' && b[i + 1] == '\n' && b[i + 2] == '\r' && b[i + 3] == '\n') return i;
+        }
+        return -1;
+    }
+    
+    /**
+     * @param head the request head in lower case
+     * @param name a lower case header name
+     * @return the header's integer value, or -1 if it is absent
+     */
+    private static int headerInt(String head, String name) {
+        int i = head.indexOf("\r\n" + name + ":");
+        if (i < 0) return -1;
+        int start = i + name.length() + 3;
+        int end = head.indexOf("\r\n", start);
+        try {
+            return Integer.parseInt(head.substring(start, end < 0 ? head.length() : end).trim());
+        }
+        catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Per-connection buffers
+     */
+    private static class Connection {
+        final ByteBuffer in = ByteBuffer.allocate(MAX_REQUEST);
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        boolean close; //close once the pending responses are written
+        
+        void ensureOutput(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                out = bigger.put(out);
+            }
+        }
+    }
+    
+    /**
+     * @param args --port=n (default 8080), --seed=n, --store=file to persist sessions,
+     * --log=directory for the game log (default the working directory, or none to turn it off),
+     * --journal=file to record every game in a GameJournal,
+     * and board options such as --pegs=5 (see BoardConfig.fromArgs)
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        BoardConfig config = BoardConfig.fromArgs(args);
+        int port = 8080;
+        SecretGenerator secrets = new SecretGenerator(config.getSpace());
+        SessionStore store = null;
+        GameLog gameLog = null;
+        GameJournal journal = GameJournal.NONE;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring("--port=".length()));
+            if (arg.startsWith("--seed=")) secrets = new SecretGenerator(config.getSpace(), Long.parseLong(arg.substring("--seed=".length())));
+            if (arg.startsWith("--store=")) store = new SessionStore(Paths.get(arg.substring("--store=".length())), config);
+            if (arg.startsWith("--journal=")) journal = new GameJournal(Paths.get(arg.substring("--journal=".length())));
+            if (arg.equals("--log=none")) gameLog = GameLog.NONE;
+            else if (arg.startsWith("--log=")) gameLog = new GameLog(Paths.get(arg.substring("--log=".length())), "game_server");
+        }
+        if (gameLog == null) gameLog = new GameLog(GameLog.defaultDirectory(), "game_server");
+        LOG.addHandler(gameLog.handler());
+        if (store != null)
+            System.out.println("Resuming up to " + (store.getNextId() - 1) + " stored sessions, " + store.getRepaired() + " repaired");
+        GameMetrics.register();
+        GameServer server = new GameServer(config, secrets, port, store);
+        server.setGameLog(gameLog);
+        server.setJournal(journal);
+        System.out.println("Serving " + config + " on http://127.0.0.1:" + server.getPort() + "/games");
+        Thread serving = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> { //on Ctrl-C, stop serving and let the finally block close the files
+            server.stop();
+            try {
+                serving.join(5000);
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            server.run();
+        }
+        finally {
+            if (store != null) store.close();
+            journal.close();
+            gameLog.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * GameSnapshot class
+ * Immutable state of a game at one moment: the board, the secret, the rows guessed so far with
+ * their feedback, the pegs placed in the current row and the status. A move never changes a
+ * snapshot but returns the next one, which shares every earlier row with it, so snapshots can be
+ * handed to other threads (a spectator, a recorder, a hint search) with no locking and no risk
+ * of reading half of a move. The candidate secrets left by the rows are derived on first use
+ * from those left by the rows before, so each row prunes the candidates once.
+ */
+public final class GameSnapshot {
+    private final BoardConfig config;
+    private final long game;
+    private final int solutionCode;
+    private final Row lastRow; //the newest row, which links back to the earlier ones; null before the first guess
+    private final int guessCode; //colors of the current row's pegs, in the first placed positions
+    private final int placed;
+    private final Game.Status status;
+    private final boolean solutionShown;
+    private final Candidates candidates; //shared by every snapshot with the same rows
+    
+    /**
+     * One guessed row and its feedback; rows are shared by every snapshot after the one that added them
+     */
+    public static final class Row {
+        private final int number;
+        private final int guessCode;
+        private final int feedback;
+        private final Row previous;
+        
+        private Row(int number, int guessCode, int feedback, Row previous) {
+            this.number = number;
+            this.guessCode = guessCode;
+            this.feedback = feedback;
+            this.previous = previous;
+        }
+        
+        /**
+         * @return the zero-based row number
+         */
+        public int getNumber() {
+            return number;
+        }
+        
+        /**
+         * @return the packed guess code
+         */
+        public int getGuessCode() {
+            return guessCode;
+        }
+        
+        /**
+         * @return the packed feedback (see Scorer)
+         */
+        public int getFeedback() {
+            return feedback;
+        }
+        
+        /**
+         * @return the row before this one, or null for the first row
+         */
+        public Row getPrevious() {
+            return previous;
+        }
+    }
+    
+    /**
+     * The candidates left by a snapshot's rows, derived once, when first asked for, from the
+     * candidates left by the rows before; until then only the new row is kept
+     */
+    private static final class Candidates {
+        private final CodeSpace space;
+        private final int guessIndex;
+        private final int feedback;
+        private Candidates previous; //null once derived, so earlier indices can be collected
+        private CandidateIndex index;
+        
+        Candidates(CodeSpace space) {
+            this(space, null, -1, 0);
+        }
+        
+        Candidates(CodeSpace space, Candidates previous, int guessIndex, int feedback) {
+            this.space = space;
+            this.previous = previous;
+            this.guessIndex = guessIndex;
+            this.feedback = feedback;
+        }
+        
+        synchronized CandidateIndex get() {
+            if (index == null) {
+                if (previous == null) {
+                    index = new CandidateIndex(space);
+                }
+                else {
+                    CandidateIndex next = new CandidateIndex(previous.get()); //the previous index is shared, so prune a copy
+                    next.prune(guessIndex, feedback);
+                    index = next;
+                    previous = null;
+                }
+            }
+            return index;
+        }
+    }
+    
+    private GameSnapshot(BoardConfig config, long game, int solutionCode, Row lastRow, int guessCode, int placed,
+            Game.Status status, boolean solutionShown, Candidates candidates) {
+        this.config = config;
+        this.game = game;
+        this.solutionCode = solutionCode;
+        this.lastRow = lastRow;
+        this.guessCode = guessCode;
+        this.placed = placed;
+        this.status = status;
+        this.solutionShown = solutionShown;
+        this.candidates = candidates;
+    }
+    
+    /**
+     * Creates the snapshot of a game that has just started
+     * @param config the board the game is played on
+     * @param game the game's session id
+     * @param solutionCode the packed solution code
+     * @return the snapshot
+     */
+    public static GameSnapshot start(BoardConfig config, long game, int solutionCode) {
+        return new GameSnapshot(config, game, solutionCode, null, 0, 0, Game.Status.PLAYING, false, new Candidates(config.getSpace()));
+    }
+    
+    /**
+     * Places a peg in the next position of the current row
+     * @param color the peg's color ordinal
+     * @return the next snapshot
+     * @throws IllegalStateException if the game is over or the row is already full
+     */
+    public GameSnapshot withPeg(int color) throws IllegalStateException {
+        if (isOver())
+            throw new IllegalStateException("The game is over");
+        if (placed == config.getPegs())
+            throw new IllegalStateException("The current row is full");
+        return new GameSnapshot(config, game, solutionCode, lastRow, Scorer.withColor(guessCode, placed, color), placed + 1, status, solutionShown,
+                candidates);
+    }
+    
+    /**
+     * Removes the pegs placed in the current row
+     * @return the next snapshot, or this one if no pegs are placed
+     */
+    public GameSnapshot withoutPegs() {
+        return placed == 0 ? this : new GameSnapshot(config, game, solutionCode, lastRow, 0, 0, status, solutionShown, candidates);
+    }
+    
+    /**
+     * Completes the current row with its feedback, ending the game if it was won or it was the last row
+     * @param feedback the packed feedback for the full current row
+     * @return the next snapshot
+     * @throws IllegalStateException if the current row isn't full
+     */
+    public GameSnapshot withFeedback(int feedback) throws IllegalStateException {
+        if (placed != config.getPegs())
+            throw new IllegalStateException("The current row isn't full");
+        Row row = new Row(getRows(), guessCode, feedback, lastRow);
+        Game.Status next = Scorer.isWin(feedback, config.getPegs()) ? Game.Status.WON
+                : row.number + 1 == config.getRows() ? Game.Status.LOST : Game.Status.PLAYING;
+        Candidates after = new Candidates(config.getSpace(), candidates, config.getSpace().indexOf(guessCode), feedback); //pruned when first needed
+        return new GameSnapshot(config, game, solutionCode, row, 0, 0, next, solutionShown, after);
+    }
+    
+    /**
+     * Shows the solution, which ends the game whatever its status
+     * @return the next snapshot
+     */
+    public GameSnapshot withSolutionShown() {
+        return new GameSnapshot(config, game, solutionCode, lastRow, guessCode, placed, status, true, candidates);
+    }
+    
+    /**
+     * @return the board the game is played on
+     */
+    public BoardConfig getConfig() {
+        return config;
+    }
+    
+    /**
+     * @return the game's session id
+     */
+    public long getGame() {
+        return game;
+    }
+    
+    /**
+     * @return the packed solution code; spectators should check isSolutionShown() before revealing it
+     */
+    public int getSolutionCode() {
+        return solutionCode;
+    }
+    
+    /**
+     * @return the number of rows guessed so far
+     */
+    public int getRows() {
+        return lastRow == null ? 0 : lastRow.number + 1;
+    }
+    
+    /**
+     * @param row a zero-based row number
+     * @return the row
+     * @throws IndexOutOfBoundsException
+     */
+    public Row getRow(int row) throws IndexOutOfBoundsException {
+        if (row < 0 || row >= getRows())
+            throw new IndexOutOfBoundsException("Row " + row + " of " + getRows());
+        Row r = lastRow;
+        while (r.number != row) r = r.previous;
+        return r;
+    }
+    
+    /**
+     * @return the newest row, which leads back through every earlier one, or null before the first guess
+     */
+    public Row getLastRow() {
+        return lastRow;
+    }
+    
+    /**
+     * @return every row, oldest first, in a new array
+     */
+    public Row[] getRowArray() {
+        Row[] rows = new Row[getRows()];
+        for (Row r = lastRow; r != null; r = r.previous) {
+            rows[r.number] = r;
+        }
+        return rows;
+    }
+    
+    /**
+     * @return the number of pegs placed in the current row
+     */
+    public int getPlaced() {
+        return placed;
+    }
+    
+    /**
+     * @return the packed code of the pegs placed in the current row, complete once getPlaced() reaches the board's pegs
+     */
+    public int getGuessCode() {
+        return guessCode;
+    }
+    
+    /**
+     * @param position a zero-based position within the current row, less than getPlaced()
+     * @return the color ordinal of the peg placed there
+     */
+    public int getColorAt(int position) {
+        return Scorer.colorAt(guessCode, position);
+    }
+    
+    /**
+     * @param color a color ordinal
+     * @return true if a peg of the color has been placed in the current row
+     */
+    public boolean isPlaced(int color) {
+        for (int i = 0; i < placed; i++) {
+            if (Scorer.colorAt(guessCode, i) == color) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * @return the status: PLAYING until the game is won or every row has been guessed
+     */
+    public Game.Status getStatus() {
+        return status;
+    }
+    
+    /**
+     * @return true if the solution has been shown without the game being finished
+     */
+    public boolean isSolutionShown() {
+        return solutionShown;
+    }
+    
+    /**
+     * @return true if no more pegs can be placed: the game was won or lost, or the solution was shown
+     */
+    public boolean isOver() {
+        return status != Game.Status.PLAYING || solutionShown;
+    }
+    
+    /**
+     * Finds the solutions consistent with every row, pruning the candidates of the previous rows
+     * by any rows not yet applied. The first call for a row may take time on large boards, so it
+     * belongs on a background thread, e.g. a hint search's.
+     * @return the candidates, shared by every snapshot with the same rows; copy them to prune further
+     */
+    public CandidateIndex getCandidates() {
+        return candidates.get();
+    }
+    
+    @Override
+    public String toString() {
+        CodeSpace space = config.getSpace();
+        StringBuilder text = new StringBuilder("game ").append(game).append(' ').append(status);
+        for (Row r : getRowArray()) {
+            text.append(r.number == 0 ? ": " : ", ").append(space.formatCode(r.guessCode)).append(' ')
+                    .append(Scorer.exact(r.feedback)).append('/').append(Scorer.partial(r.feedback));
+        }
+        if (placed > 0) text.append(", placed ").append(space.formatCode(guessCode), 0, placed);
+        return text.toString();
+    }
+}
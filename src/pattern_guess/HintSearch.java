@@ -0,0 +1,179 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HintSearch class
+ * Anytime guess search with a time budget, for hints and for boards too large for an
+ * exhaustive MinimaxSolver search. It starts from a candidate, which is always a reasonable
+ * guess, then scores guesses against a sample of up to SAMPLE candidates until the budget runs
+ * out, keeping the guess with the smallest worst-case partition. The sample is taken in runs
+ * from random starts, so its cost doesn't grow with the number of candidates. Candidates are scored first,
+ * then the other codes of the space in a shuffled order.
+ */
+public class HintSearch implements GuessStrategy {
+    /**
+     * Largest number of candidates each guess is scored against
+     */
+    public static final int SAMPLE = 2048;
+    private static final int RUNS = 64; //number of random starts the sample is taken from
+    
+    private final long budgetNanos;
+    
+    /**
+     * HintSearch Constructor
+     * @param budget the time allowed for each search
+     * @param unit the unit of the budget
+     * @throws IllegalArgumentException
+     */
+    public HintSearch(long budget, TimeUnit unit) throws IllegalArgumentException {
+        if (budget < 0)
+            throw new IllegalArgumentException("The time budget can't be negative");
+        this.budgetNanos = unit.toNanos(budget);
+    }
+    
+    /**
+     * @return the time allowed for each search, in nanoseconds
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+    
+    /**
+     * Chooses the best guess that can be found within the time budget
+     * @param candidates the remaining candidate secrets, which are not modified
+     * @return the index of the guess within the CodeSpace
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public int nextGuess(CandidateIndex candidates) throws IllegalArgumentException {
+        long deadline = System.nanoTime() + budgetNanos;
+        int count = candidates.remaining();
+        if (count < 1)
+            throw new IllegalArgumentException("No candidate secrets remain");
+        int best = candidates.first();
+        if (count <= 2) return best; //guessing a candidate can't do worse than any other guess
+        CodeSpace space = candidates.getSpace();
+        FeedbackTable table = FeedbackTable.of(space);
+        int[] sample = sample(candidates, deadline);
+        if (sample == null) return best;
+        int[] partitions = new int[Scorer.feedbackLimit(space.getPegs())];
+        long bestRank = Long.MAX_VALUE;
+        for (int guess = candidates.first(); guess >= 0; guess = candidates.next(guess)) { //candidates first
+            if (System.nanoTime() - deadline >= 0) return best;
+            long rank = rank(table, guess, sample, partitions) << 1;
+            if (rank < bestRank) {
+                bestRank = rank;
+                best = guess;
+                if (rank == 2) return best; //every sampled secret gets distinct feedback
+            }
+        }
+        //then the other codes, once each in a shuffled order: a multiplicative step coprime to the size
+        long size = space.size();
+        long step = coprimeStep(size, count * 0x9e3779b97f4a7c15L);
+        for (long i = 0; i < size; i++) {
+            if (System.nanoTime() - deadline >= 0) return best;
+            int guess = (int)(i * step % size);
+            if (candidates.contains(guess)) continue;
+            long rank = (rank(table, guess, sample, partitions) << 1) | 1;
+            if (rank < bestRank) {
+                bestRank = rank;
+                best = guess;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * @return the size of the largest partition a guess splits the sampled secrets into
+     */
+    private static long rank(FeedbackTable table, int guess, int[] sample, int[] partitions) {
+        Arrays.fill(partitions, 0);
+        int worst = 0;
+        for (int secret : sample) {
+            int n = ++partitions[table.score(guess, secret)];
+            if (n > worst) worst = n;
+        }
+        return worst;
+    }
+    
+    /**
+     * Samples the candidates without walking all of them: above SAMPLE candidates, short runs
+     * are taken from random starts, each run ending before the next start so none overlap
+     * @return every candidate, or a sample of up to SAMPLE of them; null if the deadline passed first
+     */
+    private static int[] sample(CandidateIndex candidates, long deadline) {
+        int count = candidates.remaining();
+        if (count <= SAMPLE) {
+            int[] all = new int[count];
+            candidates.copyTo(all);
+            return all;
+        }
+        int size = candidates.getSpace().size();
+        int[] starts = new SplittableRandom(count * 0x9e3779b97f4a7c15L).ints(RUNS, 0, size).sorted().toArray();
+        starts[0] = 0; //the runs between them cover the whole space
+        int[] sample = new int[SAMPLE];
+        int n = 0;
+        for (int r = 0; r < RUNS; r++) {
+            if (System.nanoTime() - deadline >= 0) return null;
+            int end = r + 1 < RUNS ? starts[r + 1] : size;
+            int taken = 0;
+            for (int i = candidates.next(starts[r] - 1); i >= 0 && i < end && taken < SAMPLE / RUNS; i = candidates.next(i), taken++) {
+                sample[n++] = i;
+            }
+        }
+        return Arrays.copyOf(sample, n);
+    }
+    
+    /**
+     * @return a step between 1 and size - 1 sharing no factor with size, derived from a seed
+     */
+    private static long coprimeStep(long size, long seed) {
+        if (size <= 2) return 1;
+        long step = 1 + Math.floorMod(seed, size - 1);
+        while (gcd(step, size) != 1) {
+            step = step % (size - 1) + 1;
+        }
+        return step;
+    }
+    
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
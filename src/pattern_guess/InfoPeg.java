@@ -33,9 +33,10 @@ import javafx.scene.paint.Color;
 
 /**
  * InfoPeg class
+ * There is one shared InfoPeg per color; get it with InfoPeg.of
  * @author Rachel Orrell
  */
-public class InfoPeg extends Peg {
+public final class InfoPeg extends Peg {
     /**
      * Available InfoPeg colors
      */
@@ -44,7 +45,7 @@ public class InfoPeg extends Peg {
         BLACK(Color.BLACK), 
         WHITE(Color.WHITE);
         
-        private Color c;
+        private final Color c;
         
         private AvailableColor(Color c) {
             this.c = c;
@@ -58,29 +59,27 @@ public class InfoPeg extends Peg {
         }
     }
     
-    { diameter = 10; }
-    
     /**
-     * Default InfoPeg Constructor
+     * Diameter of every InfoPeg
      */
-    public InfoPeg() {
+    public static final int DIAMETER = 10;
+    
+    private static final InfoPeg[] PEGS = new InfoPeg[AvailableColor.values().length];
+    static {
+        for(AvailableColor ac : AvailableColor.values()) {
+            PEGS[ac.ordinal()] = new InfoPeg(ac);
+        }
     }
     
-    /**
-     * Alternate InfoPeg Constructor
-     * @param color use enum InfoPeg.AvailableColor
-     */
-    public InfoPeg(AvailableColor color) {
-        super(color);
+    private InfoPeg(AvailableColor color) {
+        super(color, DIAMETER);
     }
     
     /**
-     * Alternate InfoPeg Constructor
      * @param color use enum InfoPeg.AvailableColor
-     * @param x_loc the x location
-     * @param y_loc the y location
+     * @return the InfoPeg of the given color
      */
-    public InfoPeg(AvailableColor color, int x_loc, int y_loc) {
-        super(color, x_loc, y_loc);
+    public static InfoPeg of(AvailableColor color) {
+        return PEGS[color.ordinal()];
     }
 }
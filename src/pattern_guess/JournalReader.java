@@ -0,0 +1,223 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * JournalReader class
+ * Sequential reader of a GameJournal file. The file is memory-mapped a segment at a time and
+ * each record is handed to a Visitor as primitive values, so journals of any size can be scanned
+ * without creating objects per record. A record cut short at the end of the file, as after a
+ * crash, is skipped.
+ */
+public class JournalReader implements Closeable {
+    private static final long SEGMENT_SIZE = 1L << 28;
+    private static final int MAX_RECORD = 256; //the length byte and the bytes it counts
+    private static final Game.Status[] STATUSES = Game.Status.values(); //values() clones the array on every call
+    
+    /**
+     * Receives the records of a journal in order; every method does nothing unless overridden
+     */
+    public interface Visitor {
+        /**
+         * A game started
+         * @param session the game's session id
+         * @param millis when the game started, in milliseconds since the epoch
+         * @param pegs the pegs per code
+         * @param colors the available colors
+         * @param rows the guess rows
+         * @param duplicates whether colors may repeat
+         * @param secretCode the packed secret code
+         */
+        default void start(long session, long millis, int pegs, int colors, int rows, boolean duplicates, int secretCode) {
+        }
+        
+        /**
+         * A guess was scored
+         * @param session the game's session id
+         * @param row the one-based row of the guess
+         * @param guessCode the packed guess code
+         * @param feedback the packed feedback
+         */
+        default void guess(long session, int row, int guessCode, int feedback) {
+        }
+        
+        /**
+         * A game ended
+         * @param session the game's session id
+         * @param status how the game ended: WON, LOST, REVEALED if the player was shown the secret,
+         * or PLAYING for a game that was abandoned
+         * @param rows the number of rows guessed
+         */
+        default void end(long session, Game.Status status, int rows) {
+        }
+    }
+    
+    private final Path file;
+    private final FileChannel channel;
+    private long truncated; //bytes at the end of the file that don't form a whole record
+    
+    /**
+     * Opens a journal for reading
+     * @param file the journal file
+     * @throws IOException
+     * @throws IllegalArgumentException if the file is not a game journal
+     */
+    public JournalReader(Path file) throws IOException, IllegalArgumentException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), GameJournal.HEADER_SIZE));
+        if (header.remaining() < GameJournal.HEADER_SIZE || header.getInt() != GameJournal.MAGIC || header.getInt() != GameJournal.VERSION) {
+            channel.close();
+            throw new IllegalArgumentException(file + " is not a game journal");
+        }
+    }
+    
+    /**
+     * @return the number of bytes at the end of the file that were skipped by the last replay
+     */
+    public long getTruncated() {
+        return truncated;
+    }
+    
+    /**
+     * Passes every record of the journal to a visitor, in order
+     * @param visitor the Visitor
+     * @return the number of records read
+     * @throws IOException
+     * @throws IllegalArgumentException if a record has an unknown type, the wrong length or an unknown game status
+     */
+    public long replay(Visitor visitor) throws IOException, IllegalArgumentException {
+        long size = channel.size();
+        long records = 0;
+        long position = GameJournal.HEADER_SIZE;
+        while (position < size) {
+            //each mapping overlaps the next by the largest record, so a record starting in it is always whole
+            long mapped = Math.min(SEGMENT_SIZE + MAX_RECORD, size - position);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+            int limit = (int)Math.min(SEGMENT_SIZE, mapped); //records must start before the overlap
+            while (segment.position() < limit) {
+                int start = segment.position();
+                int length = segment.get(start) & 0xFF;
+                if (start + 1 + length > mapped) { //cut short at the end of the file
+                    truncated = mapped - start;
+                    return records;
+                }
+                segment.position(start + 1);
+                read(segment, length, position + start, visitor);
+                records++;
+            }
+            position += segment.position();
+        }
+        truncated = 0;
+        return records;
+    }
+    
+    private void read(MappedByteBuffer in, int length, long offset, Visitor visitor) throws IllegalArgumentException {
+        byte type = in.get();
+        if (type == GameJournal.START && length == GameJournal.START_SIZE) {
+            long session = in.getLong();
+            long millis = in.getLong();
+            int pegs = in.get();
+            int colors = in.get();
+            int rows = in.get() & 0xFF;
+            boolean duplicates = in.get() != 0;
+            visitor.start(session, millis, pegs, colors, rows, duplicates, in.getInt());
+        }
+        else if (type == GameJournal.GUESS && length == GameJournal.GUESS_SIZE) {
+            long session = in.getLong();
+            int row = in.get() & 0xFF;
+            int guessCode = in.getInt();
+            visitor.guess(session, row, guessCode, in.get() & 0xFF);
+        }
+        else if (type == GameJournal.END && length == GameJournal.END_SIZE) {
+            long session = in.getLong();
+            int status = in.get() & 0xFF;
+            if (status >= STATUSES.length)
+                throw new IllegalArgumentException(file + " has an invalid game status in the record at byte " + offset);
+            visitor.end(session, STATUSES[status], in.get() & 0xFF);
+        }
+        else
+            throw new IllegalArgumentException(file + " has an invalid record at byte " + offset);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    /**
+     * Prints a summary of one or more journals: games, outcomes and guesses per game
+     * @param args the journal files
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        long[] games = new long[1];
+        long[] outcomes = new long[Game.Status.values().length];
+        long[] guesses = new long[GameMetrics.MAX_GUESSES + 1];
+        Visitor summary = new Visitor() {
+            @Override
+            public void start(long session, long millis, int pegs, int colors, int rows, boolean duplicates, int secretCode) {
+                games[0]++;
+            }
+            
+            @Override
+            public void end(long session, Game.Status status, int rows) {
+                outcomes[status.ordinal()]++;
+                if (status == Game.Status.WON) guesses[Math.min(rows, GameMetrics.MAX_GUESSES)]++;
+            }
+        };
+        long records = 0;
+        long start = System.nanoTime();
+        for (String arg : args) {
+            try (JournalReader reader = new JournalReader(Paths.get(arg))) {
+                records += reader.replay(summary);
+                if (reader.getTruncated() > 0)
+                    System.out.println(arg + ": skipped " + reader.getTruncated() + " bytes of an incomplete record at the end");
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long won = outcomes[Game.Status.WON.ordinal()];
+        long lost = outcomes[Game.Status.LOST.ordinal()];
+        long revealed = outcomes[Game.Status.REVEALED.ordinal()];
+        System.out.printf("records=%d games=%d won=%d lost=%d revealed=%d abandoned=%d recordsPerSecond=%.0f%n", records, games[0],
+                won, lost, revealed, games[0] - won - lost - revealed, records / seconds);
+        for (int i = 1; i < guesses.length; i++) {
+            if (guesses[i] > 0) System.out.printf("won in %2d%s: %d%n", i, i == GameMetrics.MAX_GUESSES ? "+" : "", guesses[i]);
+        }
+    }
+}
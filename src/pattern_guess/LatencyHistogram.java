@@ -0,0 +1,217 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram class
+ * Lock-free histogram of durations in nanoseconds. Each power of two is split into 8 buckets,
+ * so percentiles are accurate to within about 12%. Recording is a couple of LongAdder updates,
+ * cheap enough for hot paths on any number of threads.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = 3;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+    
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    
+    /**
+     * LatencyHistogram Constructor
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Records a duration
+     * @param nanos the duration in nanoseconds; negative durations are counted as zero
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[bucket(nanos)].increment();
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+    
+    /**
+     * Records the time since a start time
+     * @param startNanos a value of System.nanoTime() taken at the start
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * @return the number of durations recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * @param fraction a fraction between 0 and 1, e.g. 0.99
+     * @return an estimate of the duration in nanoseconds below which the fraction of recorded durations falls
+     */
+    public long percentile(double fraction) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long rank = (long)Math.ceil(fraction * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= Math.max(rank, 1)) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+    
+    /**
+     * Forgets every recorded duration
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+    
+    /**
+     * @return the current count, mean, percentiles and maximum
+     */
+    public Summary summary() {
+        long n = count.sum();
+        return new Summary(n, n == 0 ? 0 : total.sum() / (double)n / 1000, toMicros(percentile(0.5)),
+                toMicros(percentile(0.9)), toMicros(percentile(0.99)), toMicros(max.get()));
+    }
+    
+    private static double toMicros(long nanos) {
+        return nanos / (double)TimeUnit.MICROSECONDS.toNanos(1);
+    }
+    
+    /**
+     * @return the bucket of a non-negative duration: values below 8 have their own bucket,
+     * larger values are bucketed by their highest bit and the 3 bits below it
+     */
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int)nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int)(nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+    
+    /**
+     * @return the largest duration that falls in a bucket
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+    
+    /**
+     * Point-in-time summary of a LatencyHistogram, in microseconds; JMX shows it as composite data
+     */
+    public static final class Summary {
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p90Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+        
+        /**
+         * Summary Constructor
+         */
+        @ConstructorProperties({"count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "maxMicros"})
+        public Summary(long count, double meanMicros, double p50Micros, double p90Micros, double p99Micros, double maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+        
+        /**
+         * @return the number of durations recorded
+         */
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * @return the mean duration
+         */
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+        
+        /**
+         * @return the median duration
+         */
+        public double getP50Micros() {
+            return p50Micros;
+        }
+        
+        /**
+         * @return the 90th percentile duration
+         */
+        public double getP90Micros() {
+            return p90Micros;
+        }
+        
+        /**
+         * @return the 99th percentile duration
+         */
+        public double getP99Micros() {
+            return p99Micros;
+        }
+        
+        /**
+         * @return the longest duration
+         */
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LoadClient class
+ * Local load generator for GameServer: each thread plays complete games over its own keep-alive
+ * connection, guessing the lowest remaining candidate, and records the latency of every request
+ */
+public class LoadClient implements Runnable {
+    /**
+     * Latencies are recorded in 1 microsecond buckets up to this many microseconds
+     */
+    static final int MAX_MICROS = 100000;
+    
+    private final InetSocketAddress address;
+    private final BoardConfig config;
+    private final long deadline;
+    private final long[] latencies = new long[MAX_MICROS + 1]; //request count per microsecond of latency, the last bucket holds anything slower
+    private long games;
+    private long requests;
+    private final ByteBuffer in = ByteBuffer.allocate(GameServer.MAX_REQUEST);
+    private final ByteBuffer out = ByteBuffer.allocate(256);
+    
+    /**
+     * LoadClient Constructor
+     * @param address the server address
+     * @param config the board the server plays on
+     * @param deadline the System.nanoTime value at which to stop
+     */
+    public LoadClient(InetSocketAddress address, BoardConfig config, long deadline) {
+        this.address = address;
+        this.config = config;
+        this.deadline = deadline;
+    }
+    
+    @Override
+    public void run() {
+        CodeSpace space = config.getSpace();
+        CandidateIndex candidates = new CandidateIndex(space);
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            channel.socket().setTcpNoDelay(true);
+            while (System.nanoTime() < deadline) {
+                String created = request(channel, "POST", "/games");
+                String id = created.substring(created.indexOf("\"id\":") + 5, created.indexOf(','));
+                candidates.reset();
+                String status;
+                do {
+                    int guess = candidates.first();
+                    String result = request(channel, "POST", "/games/" + id + "/guess/" + space.formatCode(space.codeAt(guess)));
+                    status = jsonString(result, "status");
+                    candidates.prune(guess, Scorer.pack(jsonInt(result, "exact"), jsonInt(result, "partial")));
+                } while (status.equals("PLAYING"));
+                request(channel, "DELETE", "/games/" + id);
+                games++;
+            }
+        }
+        catch (IOException ioe) {
+            throw new IllegalStateException("Request failed", ioe);
+        }
+    }
+    
+    /**
+     * Sends a request and waits for the whole response, recording its latency
+     * @return the response body
+     */
+    private String request(SocketChannel channel, String method, String path) throws IOException {
+        long start = System.nanoTime();
+        out.clear();
+        out.put((method + " " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        in.clear();
+        int headEnd = -1;
+        int total = Integer.MAX_VALUE;
+        while (in.position() < total) {
+            if (channel.read(in) < 0) throw new EOFException("Server closed the connection");
+            if (headEnd < 0) {
+                String sofar = new String(in.array(), 0, in.position(), StandardCharsets.ISO_8859_1);
+                headEnd = sofar.indexOf("\r\n\r\n");
+                if (headEnd >= 0) {
+                    int i = sofar.indexOf("Content-Length: ") + 16;
+                    total = headEnd + 4 + Integer.parseInt(sofar.substring(i, sofar.indexOf("\r\n", i)));
+                }
+            }
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        latencies[(int)Math.min(micros, MAX_MICROS)]++;
+        requests++;
+        return new String(in.array(), headEnd + 4, total - headEnd - 4, StandardCharsets.ISO_8859_1);
+    }
+    
+    private static int jsonInt(String json, String name) {
+        int i = json.indexOf("\"" + name + "\":") + name.length() + 3;
+        int end = i;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) end++;
+        return Integer.parseInt(json.substring(i, end));
+    }
+    
+    private static String jsonString(String json, String name) {
+        int i = json.indexOf("\"" + name + "\":\"") + name.length() + 4;
+        return json.substring(i, json.indexOf('"', i));
+    }
+    
+    /**
+     * @param counts request counts per microsecond of latency
+     * @param total the total number of requests
+     * @param fraction a percentile as a fraction, e.g. 0.99
+     * @return the latency in microseconds below which that fraction of requests completed
+     */
+    static int percentile(long[] counts, long total, double fraction) {
+        long target = (long)Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) return i;
+        }
+        return counts.length - 1;
+    }
+    
+    /**
+     * @param args --port=n (default 8080), --threads=n (default 8), --seconds=n (default 10)
+     * and the server's board options (see BoardConfig.fromArgs)
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = 8080;
+        int threads = 8;
+        int seconds = 10;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring("--port=".length()));
+            if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring("--threads=".length()));
+            if (arg.startsWith("--seconds=")) seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+        }
+        BoardConfig config = BoardConfig.fromArgs(args);
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1000000000L;
+        List<LoadClient> clients = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            LoadClient client = new LoadClient(new InetSocketAddress("127.0.0.1", port), config, deadline);
+            Thread t = new Thread(client, "load-client-" + i);
+            clients.add(client);
+            workers.add(t);
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long[] counts = new long[MAX_MICROS + 1];
+        long games = 0;
+        long requests = 0;
+        for (LoadClient client : clients) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += client.latencies[i];
+            }
+            games += client.games;
+            requests += client.requests;
+        }
+        System.out.printf("games=%d requests=%d requestsPerSecond=%.0f%n", games, requests, requests / elapsed);
+        System.out.printf("latency micros p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                percentile(counts, requests, 0.5), percentile(counts, requests, 0.9), percentile(counts, requests, 0.99),
+                percentile(counts, requests, 0.999), percentile(counts, requests, 1.0));
+    }
+}
@@ -0,0 +1,71 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * MinimaxSolver class
+ * Plays the game headlessly using Knuth's minimax strategy: each guess is the code whose
+ * worst-case feedback partition of the remaining candidate secrets is smallest, preferring
+ * guesses that could themselves be the secret. The partitions for each possible guess are
+ * scored in parallel on a fork-join pool.
+ */
+public class MinimaxSolver extends PartitionSolver {
+    
+    /**
+     * MinimaxSolver Constructor using the common fork-join pool
+     * @param space the CodeSpace to solve
+     */
+    public MinimaxSolver(CodeSpace space) {
+        this(space, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Alternate MinimaxSolver Constructor
+     * @param space the CodeSpace to solve
+     * @param pool the fork-join pool on which partitions are scored
+     */
+    public MinimaxSolver(CodeSpace space, ForkJoinPool pool) {
+        super(space, pool);
+    }
+    
+    /**
+     * @return the size of the largest partition
+     */
+    @Override
+    protected int cost(int[] partitions, int candidates) {
+        int worst = 0;
+        for (int size : partitions) {
+            if (size > worst) worst = size;
+        }
+        return worst;
+    }
+}
@@ -0,0 +1,284 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * OptimalSolver class
+ * Exact strategy that minimizes the expected number of guesses, every secret being equally
+ * likely. The cost of a set of candidates is the number of guesses needed to find each of them,
+ * summed; it is found by a depth-first branch and bound search over every guess, with the
+ * exact cost of each set memoized. Each guess is bounded below by assuming its partitions are
+ * then split as evenly as the feedback values allow, so guesses are tried best bound first and
+ * most are never expanded. The search is still exponential, so it is meant for offline use on
+ * small boards, such as building the classic board's DecisionTree, which takes seconds.
+ */
+public class OptimalSolver implements GuessStrategy {
+    /**
+     * Largest CodeSpace the solver accepts; boards near the limit can take minutes
+     */
+    public static final int MAX_CODES = 640;
+    
+    private final CodeSpace space;
+    private final FeedbackTable table;
+    private final int win;
+    private final int[] lowerBound; //least possible cost of a set of each size
+    private final Map<Key, Long> solved = new HashMap<>(); //cost << 32 | best guess, by candidate set
+    private final Map<Key, Integer> atLeast = new HashMap<>(); //cost bounds proven by searches that were cut off
+    
+    /**
+     * A sorted set of code indices
+     */
+    private static final class Key {
+        private final int[] codes;
+        private final int hash;
+        
+        Key(int[] codes) {
+            this.codes = codes;
+            this.hash = Arrays.hashCode(codes);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key)o).hash == hash && Arrays.equals(((Key)o).codes, codes);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    /**
+     * OptimalSolver Constructor
+     * @param space the CodeSpace to solve
+     * @throws IllegalArgumentException if the space has more than MAX_CODES codes
+     */
+    public OptimalSolver(CodeSpace space) throws IllegalArgumentException {
+        if (space.size() > MAX_CODES)
+            throw new IllegalArgumentException("An exact search is limited to " + MAX_CODES + " codes, not " + space.size());
+        this.space = space;
+        this.table = FeedbackTable.of(space);
+        this.win = Scorer.pack(space.getPegs(), 0);
+        this.lowerBound = lowerBounds(space.size(), feedbackValues(space.getPegs()) - 1);
+    }
+    
+    /**
+     * Chooses the guess that minimizes the expected number of guesses still needed
+     * @param candidates the remaining candidate secrets, which are not modified
+     * @return the index of the guess within the CodeSpace
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public synchronized int nextGuess(CandidateIndex candidates) throws IllegalArgumentException {
+        int[] set = toSet(candidates);
+        if (set.length <= 2) return set[0]; //guessing a candidate can't do worse than any other guess
+        solve(set, Integer.MAX_VALUE);
+        return (int)(long)solved.get(new Key(set));
+    }
+    
+    /**
+     * Finds the least number of guesses needed to find every candidate, summed over the candidates
+     * @param candidates the remaining candidate secrets, which are not modified
+     * @return the total; divided by candidates.remaining(), the least expected number of guesses
+     * @throws IllegalArgumentException
+     */
+    public synchronized int cost(CandidateIndex candidates) throws IllegalArgumentException {
+        return solve(toSet(candidates), Integer.MAX_VALUE);
+    }
+    
+    /**
+     * @return the number of candidate sets whose exact cost has been found
+     */
+    public synchronized int getSolvedCount() {
+        return solved.size();
+    }
+    
+    private int[] toSet(CandidateIndex candidates) throws IllegalArgumentException {
+        if (!candidates.getSpace().equals(space))
+            throw new IllegalArgumentException("The candidates are not from the code space " + space);
+        if (candidates.remaining() < 1)
+            throw new IllegalArgumentException("No candidate secrets remain");
+        int[] set = new int[candidates.remaining()];
+        candidates.copyTo(set);
+        return set;
+    }
+    
+    /**
+     * Searches for the cheapest way to find every code of a set
+     * @param set the candidate code indices, in ascending order
+     * @param limit the cost at which the search may give up
+     * @return the exact cost if it is below the limit, otherwise a lower bound of at least the limit
+     */
+    private int solve(int[] set, int limit) {
+        int n = set.length;
+        if (n <= 2) return 2 * n - 1; //guess one candidate, then the other
+        Key key = new Key(set);
+        Long known = solved.get(key);
+        if (known != null) return (int)(known >>> 32);
+        Integer floor = atLeast.get(key);
+        int lower = floor != null ? Math.max(floor, lowerBound[n]) : lowerBound[n];
+        if (lower >= limit) return lower;
+        
+        //bound every guess that splits the set, skipping guesses that split it the same way as an earlier one
+        byte[] feedback = new byte[n];
+        int[] counts = new int[win + 1];
+        Set<ByteBuffer> seen = new HashSet<>();
+        long[] ranked = new long[space.size()]; //bound << 32 | guess
+        int guesses = 0;
+        boolean full = n == space.size();
+        Set<Long> shapes = new HashSet<>();
+        for (int g = 0; g < space.size(); g++) {
+            if (full && !shapes.add(shape(space.codeAt(g)))) continue; //the whole space looks the same from every code of a shape
+            table.scoreAll(g, set, feedback);
+            Arrays.fill(counts, 0);
+            for (byte f : feedback) {
+                counts[f]++;
+            }
+            int bound = n;
+            boolean splits = true;
+            for (int f = 0; f < win; f++) {
+                if (counts[f] == n) splits = false;
+                bound += lowerBound[counts[f]];
+            }
+            if (!splits || !seen.add(ByteBuffer.wrap(feedback.clone()))) continue;
+            ranked[guesses++] = (long)bound << 32 | (counts[win] > 0 ? 0 : 1L << 31) | g; //candidates first among equal bounds
+        }
+        Arrays.sort(ranked, 0, guesses);
+        
+        int best = limit;
+        int bestGuess = -1;
+        int[][] parts = new int[win][];
+        for (int r = 0; r < guesses && (int)(ranked[r] >>> 32) < best; r++) {
+            int g = (int)ranked[r] & Integer.MAX_VALUE;
+            int bound = (int)(ranked[r] >>> 32);
+            split(g, set, feedback, counts, parts);
+            Arrays.sort(parts, (a, b) -> b.length - a.length); //largest first, as it is the likeliest to exceed the limit
+            int cost = n;
+            int rest = bound - n; //lower bounds of the parts not yet solved
+            for (int[] part : parts) {
+                if (part.length == 0) break;
+                rest -= lowerBound[part.length];
+                cost += solve(part, best - cost - rest);
+                if (cost + rest >= best) break;
+            }
+            if (cost + rest < best) {
+                best = cost;
+                bestGuess = g;
+            }
+        }
+        if (bestGuess < 0) {
+            atLeast.put(key, limit);
+            return limit;
+        }
+        solved.put(key, (long)best << 32 | bestGuess);
+        atLeast.remove(key);
+        return best;
+    }
+    
+    /**
+     * Splits a set into the codes that get each feedback for a guess other than a win
+     */
+    private void split(int guess, int[] set, byte[] feedback, int[] counts, int[][] parts) {
+        table.scoreAll(guess, set, feedback);
+        Arrays.fill(counts, 0);
+        for (byte f : feedback) {
+            counts[f]++;
+        }
+        for (int f = 0; f < win; f++) {
+            parts[f] = new int[counts[f]];
+            counts[f] = 0;
+        }
+        for (int i = 0; i < set.length; i++) {
+            int f = feedback[i];
+            if (f != win) parts[f][counts[f]++] = set[i]; //stays in ascending order
+        }
+    }
+    
+    /**
+     * @return the code's color counts, sorted, packed into a long: codes with the same shape
+     * are the same up to renaming colors and reordering positions
+     */
+    private long shape(int code) {
+        int[] perColor = new int[space.getColors()];
+        for (int i = 0; i < space.getPegs(); i++) {
+            perColor[Scorer.colorAt(code, i)]++;
+        }
+        Arrays.sort(perColor);
+        long shape = 0;
+        for (int c : perColor) {
+            shape = shape << 4 | c;
+        }
+        return shape;
+    }
+    
+    /**
+     * @return the number of feedback values a guess can get, counting the win
+     */
+    private static int feedbackValues(int pegs) {
+        int values = 0;
+        for (int exact = 0; exact <= pegs; exact++) {
+            for (int partial = 0; exact + partial <= pegs; partial++) {
+                if (exact != pegs - 1 || partial != 1) values++; //all but one peg exact leaves no room for a partial
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Finds the least possible cost of a set of each size: one guess for every code, plus the
+     * least cost of the other codes split as evenly as possible over every other feedback value
+     * @param maxSize the largest set size
+     * @param parts the number of feedback values other than a win
+     * @return the bound for each size from 0 to maxSize
+     */
+    static int[] lowerBounds(int maxSize, int parts) {
+        int[] bound = new int[maxSize + 1];
+        int[][] split = new int[parts + 1][maxSize + 1]; //least total bound of m codes split into at most k parts
+        for (int m = 0; m <= maxSize; m++) {
+            bound[m] = m <= 1 ? m : m + split[parts][m - 1];
+            split[1][m] = bound[m];
+            for (int k = 2; k <= parts; k++) {
+                int least = Integer.MAX_VALUE;
+                for (int j = 0; j <= m / k; j++) { //j, the smallest part, is at most m / k
+                    least = Math.min(least, bound[j] + split[k - 1][m - j]);
+                }
+                split[k][m] = least;
+            }
+        }
+        return bound;
+    }
+}
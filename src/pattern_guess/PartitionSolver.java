@@ -0,0 +1,218 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * PartitionSolver class
+ * Base of the solvers that choose each guess by how it partitions the remaining candidate
+ * secrets by feedback. Every code of the space is considered as a guess, in parallel on a
+ * fork-join pool: its feedback against each candidate is gathered into a byte array, the array
+ * is counted into a histogram of partition sizes, and the subclass turns the histogram into a
+ * cost. The guess with the lowest cost wins, preferring guesses that could themselves be the secret.
+ */
+public abstract class PartitionSolver implements GuessStrategy {
+    /**
+     * Number of guesses scored by a single fork-join task before it stops splitting
+     */
+    static final int GUESSES_PER_TASK = 16;
+    
+    protected final CodeSpace space;
+    protected final FeedbackTable table;
+    private final ForkJoinPool pool;
+    private volatile int firstGuess = -1; //the opening guess only depends on the space, so it is computed once
+    
+    /**
+     * PartitionSolver Constructor
+     * @param space the CodeSpace to solve
+     * @param pool the fork-join pool on which partitions are scored
+     */
+    protected PartitionSolver(CodeSpace space, ForkJoinPool pool) {
+        this.space = space;
+        this.table = FeedbackTable.of(space);
+        this.pool = pool;
+    }
+    
+    /**
+     * Rates a guess by the partition it makes
+     * @param partitions the number of candidates for each packed feedback value
+     * @param candidates the total number of candidates
+     * @return a non-negative cost, lower is better
+     */
+    protected abstract int cost(int[] partitions, int candidates);
+    
+    /**
+     * @return the CodeSpace this solver plays in
+     */
+    public CodeSpace getSpace() {
+        return space;
+    }
+    
+    /**
+     * Plays a game against a secret
+     * @param secretCode the packed secret code, such as PatternGuess.solutionCode
+     * @return the number of guesses needed to find the secret
+     * @throws IllegalArgumentException
+     */
+    public int solveCode(int secretCode) throws IllegalArgumentException {
+        int secretIndex = space.indexOf(secretCode);
+        if (secretIndex < 0)
+            throw new IllegalArgumentException("Secret is not part of the code space " + space);
+        return solve(secretIndex);
+    }
+    
+    /**
+     * Plays a game against a secret
+     * @param secretIndex the index of the secret within the CodeSpace
+     * @return the number of guesses needed to find the secret
+     */
+    public int solve(int secretIndex) {
+        CandidateIndex candidates = new CandidateIndex(space); //secrets consistent with all feedback so far
+        for (int guesses = 1; ; guesses++) {
+            int guess = nextGuess(candidates);
+            int feedback = table.score(guess, secretIndex);
+            if (Scorer.isWin(feedback, space.getPegs())) return guesses;
+            candidates.prune(guess, feedback);
+        }
+    }
+    
+    /**
+     * Plays a game against every secret in the CodeSpace
+     * @return the number of guesses needed for each secret, indexed by secret index
+     */
+    public int[] solveAll() {
+        return pool.submit(() -> IntStream.range(0, space.size()).parallel().map(this::solve).toArray()).join();
+    }
+    
+    /**
+     * Chooses the next guess
+     * @param candidates the remaining candidate secrets, which are not modified
+     * @return the index of the guess within the CodeSpace
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public int nextGuess(CandidateIndex candidates) throws IllegalArgumentException {
+        int count = candidates.remaining();
+        if (count < 1)
+            throw new IllegalArgumentException("No candidate secrets remain");
+        if (count <= 2) return candidates.first(); //guessing a candidate can't do worse than any other guess
+        boolean opening = count == space.size();
+        if (opening && firstGuess >= 0) return firstGuess;
+        int[] indices = new int[count]; //flat copy of the candidates for the tasks to scan
+        candidates.copyTo(indices);
+        PartitionTask task = new PartitionTask(indices, candidates, 0, space.size());
+        long best = ForkJoinTask.inForkJoinPool() ? task.invoke() : pool.invoke(task); //fork into the caller's pool when already running in one
+        int guess = (int)(best & Integer.MAX_VALUE);
+        if (opening) firstGuess = guess;
+        return guess;
+    }
+    
+    /**
+     * Counts feedback values into a histogram. Four interleaved histograms are counted and then
+     * summed, so consecutive equal values don't wait on each other's increments; this is the
+     * scalar form of a vectorized histogram, which the JDK 8 target can't express directly.
+     * @param feedback packed feedback values
+     * @param n the number of values to count
+     * @param partitions the histogram to fill, which is cleared first
+     * @param lanes scratch space of 4 * partitions.length ints
+     */
+    static void histogram(byte[] feedback, int n, int[] partitions, int[] lanes) {
+        int limit = partitions.length;
+        if (n < lanes.length) { //too few values for clearing and summing the lanes to pay off
+            Arrays.fill(partitions, 0);
+            for (int i = 0; i < n; i++) {
+                partitions[feedback[i] & 0xFF]++;
+            }
+            return;
+        }
+        Arrays.fill(lanes, 0);
+        int i = 0;
+        for (int end = n & ~3; i < end; i += 4) {
+            lanes[feedback[i] & 0xFF]++;
+            lanes[limit + (feedback[i + 1] & 0xFF)]++;
+            lanes[2 * limit + (feedback[i + 2] & 0xFF)]++;
+            lanes[3 * limit + (feedback[i + 3] & 0xFF)]++;
+        }
+        for (; i < n; i++) {
+            lanes[feedback[i] & 0xFF]++;
+        }
+        for (int f = 0; f < limit; f++) {
+            partitions[f] = lanes[f] + lanes[limit + f] + lanes[2 * limit + f] + lanes[3 * limit + f];
+        }
+    }
+    
+    /**
+     * Scores a range of guesses and finds the one with the lowest cost.
+     * Results are ranked as (cost, not a candidate, guess index) packed into a long,
+     * so the best guess has the smallest value.
+     */
+    private class PartitionTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final int[] candidates;
+        private final CandidateIndex index;
+        private final int from;
+        private final int to;
+        
+        PartitionTask(int[] candidates, CandidateIndex index, int from, int to) {
+            this.candidates = candidates;
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Long compute() {
+            if (to - from > GUESSES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                PartitionTask left = new PartitionTask(candidates, index, from, mid);
+                left.fork();
+                long right = new PartitionTask(candidates, index, mid, to).compute();
+                return Math.min(left.join(), right);
+            }
+            int[] partitions = new int[Scorer.feedbackLimit(space.getPegs())];
+            int[] lanes = new int[4 * partitions.length];
+            byte[] feedback = new byte[candidates.length];
+            long best = Long.MAX_VALUE;
+            for (int guess = from; guess < to; guess++) {
+                table.scoreAll(guess, candidates, feedback);
+                histogram(feedback, candidates.length, partitions, lanes);
+                long rank = ((long)cost(partitions, candidates.length) << 32) | (index.contains(guess) ? 0 : 1L << 31) | guess;
+                if (rank < best) best = rank;
+            }
+            GameMetrics.get().scored((long)(to - from) * candidates.length); //once per task, not per call
+            return best;
+        }
+    }
+}
@@ -33,21 +33,29 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Random;
-import java.util.logging.FileHandler;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.control.Alert;
-import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
@@ -57,9 +65,12 @@ import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * PatternGuess application
@@ -67,47 +78,86 @@ import javafx.stage.Stage;
  */
 public class PatternGuess extends Application {
     private static final Logger LOG = Logger.getLogger(PatternGuess.class.getName());
+    private static final int MAX_NOTIFICATIONS = 3; //messages shown at once
+    private static final StartupTimer STARTUP = new StartupTimer(); //created when the class is loaded, just before main
 
-    PatternPeg[] solution;
-    PatternPeg[] guess = new PatternPeg[4];
-    String helpText;
-    int current_y = 90; //current y position within the game board for guesses
+    BoardConfig config = BoardConfig.CLASSIC; //pegs, colors, rows and duplicate rule for the board
+    final AtomicReference<GameSnapshot> state = new AtomicReference<>(); //the current game, replaced by every move on the FX thread
+    int solutionIndex; //index of the solution code within the CodeSpace
+    CodeSpace space = config.getSpace(); //all possible codes for the board
+    FeedbackTable feedbackTable = FeedbackTable.of(space); //shared precomputed feedback for every guess and solution pair
+    SecretGenerator secrets = new SecretGenerator(space); //source of new solutions
+    String helpText; //read on first use; see getHelpText
     int[] x_position = {160, 210, 260, 310}; //x positions for pattern pegs on the board (guesses and solutions)
-    int[] feedback_pos = new int[2]; //x & y position for info peg being placed for feedback
-    int pos_num = 0; //zero-based guess peg number (0-3 since guesses each contain 4 pegs)
     GraphicsContext gc;
+    BoardRenderer renderer; //draws pegs over the cached board, repainting only the rows that change
     HBox bottomPane;
+    GameLog gameLog = GameLog.NONE; //game events and errors, written to a rotating file off the FX thread
+    long gameNumber; //session id of the current game within the game log and journal
+    GameJournal journal = GameJournal.NONE; //binary record of every game, for replaying bugs and analysing play
+    List<Circle> pegButtons = new ArrayList<>(); //peg buttons, built once and reused every game
+    VBox notifications; //non-modal messages over the board, newest last
+    HintSearch hintSearch = new HintSearch(500, TimeUnit.MILLISECONDS); //finds hints within a time budget
+    String treeFile = DecisionTree.DEFAULT_FILE; //precomputed hints for the board, if the file exists
+    GuessStrategy hintStrategy; //the decision tree or the search, chosen on the hint thread by the first hint
+    ExecutorService hintExecutor; //background thread for hint searches and pruning candidates, started when first needed
+    boolean hintPending; //a hint search is running
     
     @Override
     public void start(Stage primaryStage) {
-        try {
-            FileHandler fh = new FileHandler("log.xml");
-            LOG.addHandler(fh);
-        } catch (IOException ex) {
-            LOG.log(Level.SEVERE, null, ex);
-        } catch (SecurityException ex) {
-            LOG.log(Level.SEVERE, null, ex);
-        }
-        
-        primaryStage.setTitle("Pattern Guess");
-        BorderPane root = new BorderPane();
-        root.setBackground(new Background(new BackgroundFill(Color.SEAGREEN, null, null)));
-        Scene scene = new Scene(root, 400, 615);
+        STARTUP.mark("launch");
+        gameLog = new GameLog(GameLog.defaultDirectory(), "pattern_guess"); //falls back to the temporary directory if the working directory is read-only
+        LOG.addHandler(gameLog.handler()); //the file itself is only opened by the log's writer thread
+        String journalFile = getParameters().getNamed().get("journal"); //e.g. --journal=games.journal, or --journal=none
+        if(journalFile == null) journal = new GameJournal(GameLog.defaultDirectory().resolve("pattern_guess.journal"));
+        else if(!journalFile.equals("none")) journal = new GameJournal(Paths.get(journalFile)); //opened on the first write
+        STARTUP.mark("logging");
         
         try {
-            helpText = readTxtFile("help.txt"); //read text containing how-to guide for game
+            configure(BoardConfig.fromArgs(getParameters().getRaw().toArray(new String[0]))); //e.g. --pegs=8 --colors=12 --rows=12 --duplicates=true
         }
         catch(IllegalArgumentException iae) {
+            LOG.log(Level.SEVERE, iae.getMessage(), iae); //keep the classic board
+        }
+        String seed = getParameters().getNamed().get("seed"); //e.g. --seed=42 to replay the same sequence of solutions
+        try {
+            if(seed != null) secrets = new SecretGenerator(space, Long.parseLong(seed));
+        }
+        catch(NumberFormatException nfe) {
+            LOG.log(Level.SEVERE, nfe.getMessage(), nfe);
+        }
+        LOG.log(Level.INFO, "Solution seed {0}", Long.toString(secrets.getSeed()));
+        String hintBudget = getParameters().getNamed().get("hint-budget-ms"); //e.g. --hint-budget-ms=2000 for stronger hints on large boards
+        try {
+            if(hintBudget != null) hintSearch = new HintSearch(Long.parseLong(hintBudget), TimeUnit.MILLISECONDS);
+        }
+        catch(IllegalArgumentException iae) { //includes NumberFormatException
             LOG.log(Level.SEVERE, iae.getMessage(), iae);
         }
+        String tree = getParameters().getNamed().get("tree"); //e.g. --tree=classic.tree, or --tree=none to always search
+        if(tree != null) treeFile = tree.equals("none") ? null : tree;
+        STARTUP.mark("configure");
+        
+        primaryStage.setTitle("Pattern Guess");
+        BorderPane root = new BorderPane();
+        root.setBackground(new Background(new BackgroundFill(Color.SEAGREEN, null, null)));
+        int canvasWidth = getBoardWidth() + 100;
+        int canvasHeight = getBoardHeight() + 15;
+        Scene scene = new Scene(root, Math.max(canvasWidth, config.getColors() * 50 + 25), canvasHeight + 100); //wide enough for the board and every peg button
         MenuBar mb = new MenuBar();
         setMenus(mb);
         
-        Canvas myCanvas = new Canvas(400, 515); //canvas holds game board
+        Canvas myCanvas = new Canvas(canvasWidth, canvasHeight); //canvas holds game board
         gc = myCanvas.getGraphicsContext2D();
-        setBoard(gc); //draw game board
+        renderer = new BoardRenderer(gc, config.getRows(), this::setBoard); //render the game board once and cache it; it is drawn on the first pulse
+        notifications = new VBox(); //messages shown over the top of the board
+        notifications.setAlignment(Pos.TOP_CENTER);
+        notifications.setSpacing(5);
+        notifications.setPadding(new Insets(25, 20, 0, 20));
+        notifications.setPickOnBounds(false); //clicks between messages reach the board
         FlowPane mainPane = new FlowPane();
-        mainPane.getChildren().add(myCanvas);
+        mainPane.setAlignment(Pos.CENTER);
+        mainPane.getChildren().add(new StackPane(myCanvas, notifications));
         newSolution(); //create a new solution
         
         bottomPane = new HBox(); //bottom pane holds peg buttons
@@ -120,9 +170,51 @@ public class PatternGuess extends Application {
         root.setCenter(mainPane); //set game board as center
         root.setBottom(bottomPane); //set peg buttons as bottom
         primaryStage.setScene(scene);
+        STARTUP.mark("scene");
         primaryStage.show();
+        STARTUP.mark("show");
+        afterFirstFrame(getParameters().getRaw().contains("--exit-after-first-frame")); //e.g. to time startup or train a class data sharing archive
+    }
+    
+    /**
+     * Records the startup timing once the first frame has been rendered, then does the work that was
+     * left out of startup
+     * @param exit whether to exit the application after the first frame
+     */
+    private void afterFirstFrame(boolean exit) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) { //called on the first pulse after the window is shown
+                stop();
+                STARTUP.mark("first frame");
+                String report = STARTUP.report() + String.format("%n%-14s %8d ms", "since JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+                LOG.log(Level.INFO, "Startup timing\n{0}", report);
+                if(exit) {
+                    System.out.println(report);
+                    Platform.exit();
+                    return;
+                }
+                Thread warmUp = new Thread(() -> {
+                    GameMetrics.register(); //publish game and scoring metrics over JMX
+                    getHelpText();
+                }, "PatternGuess warm-up");
+                warmUp.setDaemon(true);
+                warmUp.start();
+            }
+        }.start();
     }
 
+    @Override
+    public void stop() {
+        try {
+            journal.close();
+        }
+        catch(IOException ioe) {
+            LOG.log(Level.SEVERE, null, ioe);
+        }
+        gameLog.close(); //write out the events still buffered
+    }
+    
     /**
      * @param args the command line arguments
      */
@@ -141,11 +233,18 @@ public class PatternGuess extends Application {
                 newGame();
                 break;
             case "Show Solution":
+                GameSnapshot shown = state.get();
+                state.set(shown.withSolutionShown());
+                if(!shown.isOver()) //the player gave up, so the game ends here
+                    journalEnd(Game.Status.REVEALED);
                 showSolution();
                 endGame();
                 break;
+            case "Hint":
+                hint();
+                break;
             case "Help":
-                showInfo("Help", helpText);
+                showInfo("Help", getHelpText());
                 break;
             case "Exit":
                 System.exit(0);
@@ -163,29 +262,41 @@ public class PatternGuess extends Application {
         Circle c = (Circle)me.getTarget(); //cast parameter as circle
         PatternPeg newPeg; 
         try {
-           newPeg = new PatternPeg(c); //construct PatternPeg from circle 
+           newPeg = PatternPeg.of((Color)c.getFill()); //look up the shared PatternPeg for the circle's color
            //will throw IllegalArgumentException if circle argument has a color that is not an allowable pattern peg color
         }
         catch(IllegalArgumentException iae) { 
             LOG.log(Level.SEVERE, iae.getMessage(), iae);
             return; //should transfer out of this function if this happens
         }
-        if(pegsContainColor(new ArrayList<PatternPeg>(Arrays.asList(guess)), newPeg.getColorName())) {
+        placePeg(newPeg);
+    }
+    
+    /**
+     * Adds a peg to the current guess, and gives feedback once the guess is full
+     * @param newPeg the PatternPeg to add
+     */
+    public void placePeg(PatternPeg newPeg) {
+        GameSnapshot game = state.get();
+        if(game.isOver()) return;
+        if(!config.isDuplicates() && game.isPlaced(newPeg.getColorOrdinal())) {
             showError("Current guess already contains this color.");
             return; //solution will not have duplicate colors, so if this is a duplicate color, do not draw or add to guess
         }
-        int radius = (int)c.getRadius();
-        gc.setFill(c.getFill());
-        gc.fillOval(x_position[pos_num] - radius, current_y - radius, radius * 2, radius * 2); //draw oval in appropriate location on board
-        //the x_position and current_y are the coordinates of the center of the oval, but ovals are drawn from the top left, so coordinates must be adjusted by the radius
+        int radius = newPeg.getDiameter() / 2;
+        int y = getRowY(game.getRows());
+        renderer.drawPeg(newPeg, x_position[game.getPlaced()] - radius, y - radius); //draw oval in appropriate location on board
+        //the x_position and y are the coordinates of the center of the oval, but ovals are drawn from the top left, so coordinates must be adjusted by the radius
         //this is done for flexibility in case the diameter of pattern pegs is changed
-        guess[pos_num] = newPeg; //add this peg to the current guess
-        if(++pos_num > 3) { //increment the position within the guess, and if after that, we have 4 pegs in the guess (pos_num is zero-based)
-            giveFeedback(); //show appropriate info pegs
-            guess = new PatternPeg[4]; //create a new guess
-            pos_num = 0; //reset guess position
-            current_y += 50; //increment current_y to the center of the next row
-            if(current_y == 540) { //if last possible guess has been made without winning
+        game = game.withPeg(newPeg.getColorOrdinal()); //add this peg to the current guess
+        state.set(game);
+        if(game.getPlaced() == config.getPegs()) { //the guess is full
+            giveFeedback(); //show appropriate info pegs and move on to the next row
+            game = state.get();
+            if(game.getStatus() == Game.Status.LOST) { //if last possible guess has been made without winning
+                gameLog.end(gameNumber, false, game.getRows());
+                GameMetrics.get().gameEnded(false, game.getRows());
+                journalEnd(Game.Status.LOST);
                 showError("You lose.");
                 showSolution();
                 endGame();
@@ -202,7 +313,7 @@ public class PatternGuess extends Application {
      */
         public void setMenus(MenuBar mb) {
         Menu mFile = new Menu("File"); //create file menu
-        String[] menuItems = {"New Game", "Show Solution", "Help", "Exit"}; //array of menu names to go under File
+        String[] menuItems = {"New Game", "Hint", "Show Solution", "Help", "Exit"}; //array of menu names to go under File
         for (String s : menuItems) { //for each menu name
             MenuItem mi = new MenuItem(s); //create new menu item from name
             mi.setOnAction(e -> menuHandler(e)); //set menuHandler as the action listener
@@ -216,25 +327,71 @@ public class PatternGuess extends Application {
      * @param gc the GraphicsContext object on which the board will be drawn
      */
     public void setBoard(GraphicsContext gc) {
+        int width = getBoardWidth();
+        int height = getBoardHeight();
         gc.setFill(Color.SADDLEBROWN);
-        gc.fillRect(50, 15, 300, 500); //draw brown rectangle
+        gc.fillRect(50, 15, width, height); //draw brown rectangle
         gc.setStroke(Color.BLACK);
-        gc.strokeLine(125, 25, 125, 505); //draw vertical line to separate feedback from guesses
-        for (int i = 65; i <= 465; i += 50) {
-            gc.strokeLine(60, i, 340, i); //draw horizontal lines to separate rows
+        gc.strokeLine(125, 25, 125, height + 5); //draw vertical line to separate feedback from guesses
+        for (int i = 65; i < height; i += 50) {
+            gc.strokeLine(60, i, width + 40, i); //draw horizontal lines to separate rows
         }
     }
     
     /**
-     * Adds the peg buttons to global variable Hbox
+     * Sets the board dimensions and rules, which take effect from the next game
+     * @param config the BoardConfig
+     * @throws IllegalArgumentException
+     */
+    public void configure(BoardConfig config) throws IllegalArgumentException {
+        if(config.getColors() > Peg.AvailableColor.values().length)
+            throw new IllegalArgumentException("At most " + Peg.AvailableColor.values().length + " colors are available");
+        this.config = config;
+        space = config.getSpace();
+        feedbackTable = FeedbackTable.of(space);
+        secrets = new SecretGenerator(space, secrets.getSeed());
+        x_position = new int[config.getPegs()];
+        for(int i = 0; i < x_position.length; i++) {
+            x_position[i] = 160 + 50 * i; //one column per peg, 50 apart
+        }
+    }
+    
+    /**
+     * @return the width of the board, which has one 50 wide column per peg plus the feedback column
+     */
+    public int getBoardWidth() {
+        return 100 + 50 * config.getPegs();
+    }
+    
+    /**
+     * @param row a zero-based guess row
+     * @return the y coordinate of the center of the row's pegs
+     */
+    public int getRowY(int row) {
+        return 90 + 50 * row;
+    }
+    
+    /**
+     * @return the height of the board, which has one 50 high row per guess plus the solution row
+     */
+    public int getBoardHeight() {
+        return 50 * (config.getRows() + 1);
+    }
+    
+    /**
+     * Adds the peg buttons to global variable Hbox, replacing any that are already there
      */
     public void setButtons() {
-        for (Peg.AvailableColor ac : Peg.AvailableColor.values()) { //add one peg button for each possible color (PatternPeg uses Peg's AvailableColor)
-            PatternPeg pp = new PatternPeg(ac);
-            Circle ppCircle = pp.buildCircle(); //create circle since they can have actions assigned
-            ppCircle.setOnMouseClicked(e -> pegClickHandler(e)); //assign pegClickHandler
-            bottomPane.getChildren().add(ppCircle); //add circle to the HBox
+        if(pegButtons.size() != config.getColors()) { //build the buttons on first use or if the number of colors changed
+            pegButtons.clear();
+            for (int i = 0; i < config.getColors(); i++) { //add one peg button for each available color (PatternPeg uses Peg's AvailableColor)
+                PatternPeg pp = PatternPeg.of(i);
+                Circle ppCircle = pp.buildCircle(); //create circle since they can have actions assigned
+                ppCircle.setOnMouseClicked(e -> pegClickHandler(e)); //assign pegClickHandler
+                pegButtons.add(ppCircle);
+            }
         }
+        bottomPane.getChildren().setAll(pegButtons); //reuse the same circles every game
     }
 
 // </editor-fold>
@@ -245,30 +402,97 @@ public class PatternGuess extends Application {
      * Starts a new game
      */
     public void newGame() {
-        newSolution(); //create a new solution        
-        current_y = 90; //reset the current_y to the center of the first guess row
-        pos_num = 0; //reset the zero-based guess peg number (position within a guess composed of 4 pegs)
-        gc.clearRect(50, 15, 300, 500); //clear the board
-        setBoard(gc); //redraw the board
-        setButtons(); //redraw the peg buttons
+        newSolution(); //create a new solution and start the game with an empty board
+        renderer.clear(); //remove every peg from the board, which is repainted on the next pulse
+        notifications.getChildren().clear(); //messages about the last game no longer apply
+        setButtons(); //restore the peg buttons
+    }
+    
+    /**
+     * Searches for a good next guess on a background thread and, unless the game has moved on
+     * by the time it is found, fills it into the current row
+     */
+    public void hint() {
+        GameSnapshot game = state.get(); //the search reads this while the player carries on
+        if(game.isOver() || hintPending) return;
+        hintPending = true;
+        CompletableFuture.supplyAsync(() -> getHintStrategy().nextGuess(new CandidateIndex(game.getCandidates())), getHintExecutor())
+                .whenComplete((guessIndex, ex) -> Platform.runLater(() -> {
+                    hintPending = false;
+                    GameSnapshot now = state.get();
+                    if(ex != null)
+                        LOG.log(Level.SEVERE, "Hint search failed", ex);
+                    else if(now.getGame() == game.getGame() && now.getRows() == game.getRows() && !now.isOver())
+                        applyHint(guessIndex);
+                }));
+    }
+    
+    /**
+     * @return the background thread for hint searches and pruning candidates, started on first use
+     */
+    ExecutorService getHintExecutor() {
+        if(hintExecutor == null) {
+            hintExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "PatternGuess hint");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return hintExecutor;
+    }
+    
+    /**
+     * Chooses how hints are found the first time one is asked for: a lookup in the decision tree
+     * file when there is one for the board, otherwise the time-budgeted search
+     * @return the strategy that finds hints
+     */
+    GuessStrategy getHintStrategy() {
+        if(hintStrategy == null) { //only ever called on the hint thread
+            hintStrategy = hintSearch;
+            if(treeFile != null && Files.exists(Paths.get(treeFile))) {
+                try {
+                    DecisionTree tree = new DecisionTree(Paths.get(treeFile), hintSearch); //search once the player leaves the tree
+                    if(tree.getSpace().equals(space)) hintStrategy = tree;
+                }
+                catch(IOException | IllegalArgumentException e) {
+                    LOG.log(Level.WARNING, "Can't use the decision tree " + treeFile, e);
+                }
+            }
+        }
+        return hintStrategy;
+    }
+    
+    /**
+     * Replaces the current row, including any pegs already placed, with a guess
+     * @param guessIndex the index of the guess within the CodeSpace
+     */
+    public void applyHint(int guessIndex) {
+        int code = space.codeAt(guessIndex);
+        GameSnapshot game = state.get().withoutPegs();
+        state.set(game);
+        renderer.clearRow((getRowY(game.getRows()) - BoardRenderer.TOP) / BoardRenderer.ROW_HEIGHT);
+        for(int i = 0; i < config.getPegs(); i++) {
+            placePeg(PatternPeg.of(Scorer.colorAt(code, i))); //the last peg completes the guess and gives feedback
+        }
     }
     
     /**
      * Creates a new solution
      */
     public void newSolution() {
-        solution = new PatternPeg[4]; //initialize a solution composed of 4 pegs
-        ArrayList existing = new ArrayList<>(); //will hold Integers representing the indices of colors from Peg's AvailableColor enum that currently exist in the solution
-        Random rand;
-        int color = 0;
-        for (int i = 0; i < solution.length; i++) {
-            do {
-                rand = new Random();
-                color = rand.nextInt(Peg.AvailableColor.values().length); //choose a random integer from 0 (inclusive) to the length of the Peg.AvailableColor enum (exclusive) 
-            } while (existing.contains(color)); //if this integer is already in ArrayList existing, try again
-            existing.add(color); //add he integer to existing
-            solution[i] = new PatternPeg(Peg.AvailableColor.values()[color]); //add a pattern peg with this color to the solution
+        long start = System.nanoTime();
+        solutionIndex = secrets.nextIndex(); //draw a random code, which follows the board's duplicate rule
+        int solutionCode = space.codeAt(solutionIndex);
+        state.set(GameSnapshot.start(config, ++gameNumber, solutionCode)); //publish the new game with an empty board
+        gameLog.newGame(gameNumber, solutionIndex);
+        GameMetrics.get().gameStarted();
+        try {
+            journal.start(gameNumber, config, solutionCode);
+        }
+        catch(IOException ioe) {
+            journalFailed(ioe);
         }
+        GameMetrics.get().solution().recordSince(start);
     }
     
     /**
@@ -283,89 +507,141 @@ public class PatternGuess extends Application {
      * @return
      */
     public boolean checkGuess() {
-        if(guess.length != solution.length) return false; //can't be correct if it's not the same length as the solution
-        for(int i=0; i<solution.length; i++) {
-            if(!solution[i].equals(guess[i]))
-                return false; //not correct if any individual guess peg does not match the corresponding solution peg
-        }
-        return true; //if it hasn't returned by now, it must be correct
+        GameSnapshot game = state.get();
+        if(game.getPlaced() != config.getPegs()) return false; //can't be correct if the guess is incomplete
+        return Scorer.isWin(Scorer.score(game.getSolutionCode(), game.getGuessCode(), config.getPegs()), config.getPegs());
     }
     
     /**
-     * Selects info pegs to give the player feedback on the current guess
+     * Selects info pegs to give the player feedback on the full current guess, and completes its row
      */
     public void giveFeedback() {
-        if(checkGuess()) { //first check to see if they won
+        long start = System.nanoTime();
+        GameSnapshot game = state.get();
+        int guessCode = game.getGuessCode();
+        int guessIndex = space.indexOf(guessCode);
+        int feedback = feedbackTable.score(guessIndex, solutionIndex); //score the guess once for both the win check and the info pegs
+        game = game.withFeedback(feedback); //the row is complete, and the game is over if it won or was the last row
+        state.set(game);
+        if(!game.isOver()) {
+            GameSnapshot pruned = game;
+            getHintExecutor().execute(() -> pruned.getCandidates()); //prune by the new row now, off the FX thread, so a hint finds it done
+        }
+        int rows = game.getRows();
+        gameLog.guess(gameNumber, rows, guessIndex, feedback);
+        try {
+            journal.guess(gameNumber, rows, guessCode, feedback);
+        }
+        catch(IOException ioe) {
+            journalFailed(ioe);
+        }
+        if(game.getStatus() == Game.Status.WON) { //first check to see if they won
+            gameLog.end(gameNumber, true, rows);
+            GameMetrics.get().gameEnded(true, rows);
+            journalEnd(Game.Status.WON);
+            GameMetrics.get().feedback().recordSince(start);
             showInfo("Info", "You win!");
             endGame();
         }
         else {
-            feedback_pos[0] = 70;
-            feedback_pos[1] = current_y - 15;
-            ArrayList feedback = new ArrayList<>();
-            ArrayList<PatternPeg> guessList = new ArrayList<PatternPeg>(Arrays.asList(guess)); //create guess ArrayList to affect without affecting the original array
-            ArrayList<PatternPeg> solutionList = new ArrayList<PatternPeg>(Arrays.asList(solution));  //create solution ArrayList to ease operations
-            for(int i=0; i<solution.length; i++) {
-                if(solution[i].equals(guess[i])) { //if guess peg is the right color and in the right position
-                    feedback.add(getFeedbackPeg(InfoPeg.AvailableColor.WHITE, feedback.size())); //add white info peg
-                    guessList.remove(guess[i]); //remove from guessList so as to not also apply a black info peg for this guess peg
-                }
-            }
-            for(PatternPeg peg : guessList) { //check only guess pegs for which a white info peg has not been displayed
-                if(pegsContainColor(solutionList, peg.getColorName())) //if the color of this guess peg is anywhere in the solution
-                    feedback.add(getFeedbackPeg(InfoPeg.AvailableColor.BLACK, feedback.size())); //add black info peg
-            }
+            int y = getRowY(rows - 1); //the row that was just guessed
+            int size = 0; //number of info pegs drawn so far
+            for(int i = 0; i < Scorer.exact(feedback); i++) //guess pegs of the right color in the right position
+                getFeedbackPeg(InfoPeg.AvailableColor.WHITE, size++, y); //add white info peg
+            for(int i = 0; i < Scorer.partial(feedback); i++) //guess pegs of the right color in the wrong position
+                getFeedbackPeg(InfoPeg.AvailableColor.BLACK, size++, y); //add black info peg
+            GameMetrics.get().feedback().recordSince(start);
         }
     }
     
     /**
-     * Checks for the existence of a color within an ArrayList of PatternPegs
-     * @param pegs an ArrayList of type PatternPeg
-     * @param colorName a String
-     * @return
+     * Records the outcome of the current game in the journal and writes the game out
+     * @param status WON, LOST or REVEALED
+     */
+    public void journalEnd(Game.Status status) {
+        try {
+            journal.end(gameNumber, status, state.get().getRows());
+            journal.flush();
+        }
+        catch(IOException ioe) {
+            journalFailed(ioe);
+        }
+    }
+    
+    /**
+     * Stops journaling after the journal couldn't be written, so the game can go on without it
+     * @param ioe the IOException from the journal
      */
-    public boolean pegsContainColor(ArrayList<PatternPeg> pegs, String colorName) {
-        return pegs.stream().anyMatch(peg -> (peg != null && peg.getColorName().equals(colorName)));
+    private void journalFailed(IOException ioe) {
+        LOG.log(Level.SEVERE, "Journal disabled", ioe);
+        journal = GameJournal.NONE;
     }
     
     /**
-     * Draws an InfoPeg of the appropriate color and increments values in the global array feedback_pos
+     * Draws an InfoPeg of the appropriate color in the next feedback position of a row
      * @param color an InfoPeg.AvailableColor - the color of peg to draw
-     * @param feedbackSize an int representing the total number of info pegs in the feedback for the current guess
+     * @param feedbackSize an int representing the number of info pegs already drawn for the feedback on this guess
+     * @param rowY the y coordinate of the center of the guess row
      * @return the InfoPeg that was drawn
      */
-    public InfoPeg getFeedbackPeg(InfoPeg.AvailableColor color, int feedbackSize) {
-        InfoPeg peg = new InfoPeg(color, feedback_pos[0], feedback_pos[1]); //create the peg with the given color and the appropriate x & y values
-        peg.draw(gc); //draw the peg
-        incrementFeedbackPosition(feedbackSize + 1); //increment the feedback x & y positions, incrementing the size before passing to include the peg that has just been drawn
+    public InfoPeg getFeedbackPeg(InfoPeg.AvailableColor color, int feedbackSize, int rowY) {
+        InfoPeg peg = InfoPeg.of(color); //the shared peg with the given color
+        int[] position = getFeedbackPosition(feedbackSize, rowY);
+        renderer.drawPeg(peg, position[0], position[1]); //draw the peg at the appropriate x & y values
         return peg;
     }
     
     /**
-     * Increments the x and y position (global array feedback_pos) for the next info peg for feedback on a guess;
-     * assumes a max size of 4
+     * Finds the x and y position for an info peg for feedback on a guess;
+     * info pegs are laid out in two rows, each holding half of the pattern pegs (rounded up)
      * @param size an int representing the number of info pegs that have already been drawn for the feedback on this guess 
+     * @param rowY the y coordinate of the center of the guess row
+     * @return the x and y position of the top left of the info peg
      */
-    public void incrementFeedbackPosition(int size) {
-        feedback_pos[0] = size % 2 == 0 ? 70 : 100; //if the size is even, position into 1st column, else 2nd column
-        feedback_pos[1] = size < 2 ? current_y - 15 : current_y + 7; //if the size is less than two, position into 1st row, else 2nd row
+    public int[] getFeedbackPosition(int size, int rowY) {
+        int columns = (config.getPegs() + 1) / 2;
+        int step = columns > 1 ? Math.min(30, 50 / (columns - 1)) : 0; //30 apart, squeezed together if they would not fit between x 60 and 110
+        int x = 85 - step * (columns - 1) / 2 + step * (size % columns); //columns are centered on x 85 (70 and 100 for the classic board)
+        int y = size < columns ? rowY - 15 : rowY + 7; //if the first row isn't full yet, position into 1st row, else 2nd row
+        return new int[] {x, y};
     }
     
     /**
      * Displays the solution to the player
      */
     public void showSolution() {
-        int i = 0;
-        for(PatternPeg p : solution) {
+        int solutionCode = state.get().getSolutionCode();
+        for(int i = 0; i < config.getPegs(); i++) {
+            PatternPeg p = PatternPeg.of(Scorer.colorAt(solutionCode, i)); //the pattern peg with this position's color
             //x_position and 40 form the coordinates of the center position, and ovals are drawn from the top left, so must adjust by radius
             //this is done for flexibility in case the diameter of pattern pegs is changed
-            p.setX_loc(x_position[i] - p.getDiameter() / 2);
-            p.setY_loc(40 - p.getDiameter() / 2);
-            p.draw(gc);
-            i++;
+            renderer.drawPeg(p, x_position[i] - p.getDiameter() / 2, 40 - p.getDiameter() / 2);
         }
     }
     
+    /**
+     * @return the current game, which any thread may read without locking; it is replaced, never changed, by each move
+     */
+    public GameSnapshot getSnapshot() {
+        return state.get();
+    }
+    
+    /**
+     * @return the how-to guide for the game, read from help.txt the first time it's needed
+     */
+    public synchronized String getHelpText() {
+        if(helpText == null) {
+            try {
+                helpText = readTxtFile("help.txt"); //read text containing how-to guide for game
+            }
+            catch(IllegalArgumentException iae) {
+                LOG.log(Level.SEVERE, iae.getMessage(), iae);
+                helpText = "";
+            }
+        }
+        return helpText;
+    }
+    
     /**
      * Reads a .txt file into a String
      * @param fileName
@@ -376,44 +652,58 @@ public class PatternGuess extends Application {
         if (!fileName.endsWith(".txt")) { //check file type
             throw new IllegalArgumentException("Unexpected file type; .txt file expected.");
         }
-        String line = "";
-        String text = "";
+        String line;
+        StringBuilder text = new StringBuilder();
         //try to read the file
         try (FileReader fReader = new FileReader(fileName); BufferedReader bReader = new BufferedReader(fReader)) {
-            while ((line = bReader.readLine()) != null) { //assign non-null line of text to the line variable
-                text += line; //add line to text
+            for (int lines = 0; (line = bReader.readLine()) != null; lines++) { //assign non-null line of text to the line variable
+                if (lines > 0) text.append('\n'); //keep the line breaks between lines
+                text.append(line); //add line to text
             }
         } catch (FileNotFoundException fnfe) {
             LOG.log(Level.SEVERE, null, fnfe);
         } catch (IOException ioe) {
             LOG.log(Level.SEVERE, null, ioe);
         }
-        return text;
+        return text.toString();
     }
     
     /**
-     * Show an error alert to the player
+     * Show an error message to the player over the board
      * @param text a String containing the text to display
      */
     public void showError(String text) {
-        Alert alert = new Alert(AlertType.ERROR);
-        alert.setTitle("Error");
-        alert.setHeaderText(null);
-        alert.setContentText(text);
-        alert.showAndWait();
+        showNotification(text, Color.FIREBRICK);
     }
     
     /**
-     * Show an information alert to the player
-     * @param title a String containing the alert title
+     * Show an information message to the player over the board
+     * @param title a String containing the message title, shown before the text
      * @param text a String containing the text to display
      */
     public void showInfo(String title, String text) {
-        Alert alert = new Alert(AlertType.INFORMATION);
-        alert.setTitle(title);
-        alert.setHeaderText(null);
-        alert.setContentText(text);
-        alert.showAndWait();
+        showNotification(title + ": " + text, Color.DARKSLATEGRAY);
+    }
+    
+    /**
+     * Shows a message over the board without blocking, so the game carries on while it is shown;
+     * it is hidden when clicked or after enough time to read it, and only the newest few are kept
+     * @param text the message
+     * @param background the color behind the message
+     */
+    public void showNotification(String text, Color background) {
+        Label message = new Label(text);
+        message.setWrapText(true);
+        message.setMaxWidth(getBoardWidth());
+        message.setPadding(new Insets(8));
+        message.setTextFill(Color.WHITE);
+        message.setBackground(new Background(new BackgroundFill(background, null, null)));
+        message.setOnMouseClicked(e -> notifications.getChildren().remove(message));
+        if(notifications.getChildren().size() == MAX_NOTIFICATIONS) notifications.getChildren().remove(0); //drop the oldest
+        notifications.getChildren().add(message);
+        PauseTransition timeout = new PauseTransition(Duration.seconds(Math.max(3, text.length() / 15.0))); //about 15 characters a second
+        timeout.setOnFinished(e -> notifications.getChildren().remove(message));
+        timeout.play();
     }
 
 // </editor-fold>
@@ -0,0 +1,319 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PatternGuessCli class
+ * Headless batch mode for data pipelines: reads records from a file or standard input and writes
+ * one result per record to standard output as it goes. Input and output pass through fixed
+ * buffers on NIO channels, so memory use doesn't grow with the input.
+ * <p>
+ * In text form each line holds codes written as in CodeSpace.parseCode (one hexadecimal digit per
+ * peg), separated by spaces, tabs or commas; blank lines are skipped.
+ * <pre>
+ * score  "secret guess"  gives  "exact partial"
+ * solve  "secret"        gives  "secret guesses guess1 guess2 ..."
+ * </pre>
+ * In binary form codes are packed as in Scorer, 4 bytes each, big-endian, with no separators.
+ * <pre>
+ * score  secret, guess   gives  1 byte of packed feedback (exact &lt;&lt; 4 | partial)
+ * solve  secret          gives  1 byte holding the number of guesses
+ * </pre>
+ * A solve needing more than StrategyEvaluator.MAX_GUESSES guesses gives 0 guesses.
+ */
+public class PatternGuessCli {
+    static final int BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * What is done with each record
+     */
+    public static enum Mode { SCORE, SOLVE }
+    
+    private final CodeSpace space;
+    private final Mode mode;
+    private final boolean binary;
+    private final GuessStrategy strategy;
+    private final FeedbackTable table;
+    private final CandidateIndex candidates;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final int[] codes = new int[2]; //codes of the current record
+    private WritableByteChannel output;
+    private long records;
+    private long line; //current line of text input, from 1
+    private int tokens; //codes read so far on the current line
+    private int code; //the code being read
+    private int digits; //its digits read so far
+    
+    /**
+     * PatternGuessCli Constructor
+     * @param space the CodeSpace of the codes read
+     * @param mode whether to score pairs of codes or solve secrets
+     * @param binary true for 4 byte codes and 1 byte results, false for lines of text
+     * @param strategy the strategy that solves secrets; not used for scoring
+     */
+    public PatternGuessCli(CodeSpace space, Mode mode, boolean binary, GuessStrategy strategy) {
+        this.space = space;
+        this.mode = mode;
+        this.binary = binary;
+        this.strategy = strategy;
+        this.table = FeedbackTable.of(space);
+        this.candidates = mode == Mode.SOLVE ? new CandidateIndex(space) : null;
+    }
+    
+    /**
+     * Processes every record of the input
+     * @param input the records
+     * @param output where the results are written; it is not closed
+     * @return the number of records processed
+     * @throws IOException
+     * @throws IllegalArgumentException if a record is not valid, naming the line or record
+     */
+    public long run(ReadableByteChannel input, WritableByteChannel output) throws IOException, IllegalArgumentException {
+        this.output = output;
+        records = 0;
+        line = 1;
+        tokens = 0;
+        digits = 0;
+        code = 0;
+        in.clear();
+        out.clear();
+        int recordSize = mode == Mode.SCORE ? 8 : 4;
+        while (input.read(in) >= 0) {
+            in.flip();
+            if (binary) {
+                while (in.remaining() >= recordSize) {
+                    codes[0] = checkCode(in.getInt());
+                    if (mode == Mode.SCORE) codes[1] = checkCode(in.getInt());
+                    process();
+                }
+            }
+            else {
+                while (in.hasRemaining()) {
+                    readText(in.get());
+                }
+            }
+            in.compact(); //keep the start of a binary record cut by the end of the buffer
+        }
+        if (binary && in.position() > 0)
+            throw new IllegalArgumentException("Record " + (records + 1) + " is cut short at the end of the input");
+        if (!binary) {
+            endCode();
+            endLine();
+        }
+        flush();
+        return records;
+    }
+    
+    /**
+     * Takes one byte of text input
+     * @param b the byte
+     * @throws IOException
+     * @throws IllegalArgumentException
+     */
+    private void readText(byte b) throws IOException, IllegalArgumentException {
+        switch (b) {
+            case '\n':
+                endCode();
+                endLine();
+                line++;
+                break;
+            case ' ':
+            case '\t':
+            case ',':
+            case '\r':
+                endCode();
+                break;
+            default:
+                int color = Character.digit(b, Scorer.MAX_COLORS);
+                if (color < 0)
+                    throw new IllegalArgumentException("Line " + line + ": invalid character '" + (char)b + "'");
+                if (digits < Scorer.MAX_PEGS) code = Scorer.withColor(code, digits, color);
+                digits++;
+        }
+    }
+    
+    private void endCode() throws IllegalArgumentException {
+        if (digits == 0) return;
+        if (digits != space.getPegs())
+            throw new IllegalArgumentException("Line " + line + ": expected " + space.getPegs() + " pegs per code");
+        if (tokens == (mode == Mode.SCORE ? 2 : 1))
+            throw new IllegalArgumentException("Line " + line + ": too many codes");
+        codes[tokens++] = checkCode(code);
+        code = 0;
+        digits = 0;
+    }
+    
+    private void endLine() throws IOException, IllegalArgumentException {
+        if (tokens == 0) return; //blank line
+        if (tokens != (mode == Mode.SCORE ? 2 : 1))
+            throw new IllegalArgumentException("Line " + line + ": too few codes");
+        tokens = 0;
+        process();
+    }
+    
+    private int checkCode(int code) throws IllegalArgumentException {
+        if (space.indexOf(code) < 0)
+            throw new IllegalArgumentException((binary ? "Record " + (records + 1) : "Line " + line)
+                    + ": not a valid code for a board with " + space + ": " + space.formatCode(code));
+        return code;
+    }
+    
+    /**
+     * Scores or solves the current record and writes its result
+     * @throws IOException
+     */
+    private void process() throws IOException {
+        records++;
+        if (mode == Mode.SCORE) {
+            int feedback = Scorer.score(codes[0], codes[1], space.getPegs());
+            if (binary) {
+                reserve(1);
+                out.put((byte)feedback);
+            }
+            else {
+                reserve(8);
+                putNumber(Scorer.exact(feedback));
+                out.put((byte)' ');
+                putNumber(Scorer.partial(feedback));
+                out.put((byte)'\n');
+            }
+            return;
+        }
+        int guesses = solve(space.indexOf(codes[0]));
+        if (binary) {
+            reserve(1);
+            out.put((byte)guesses);
+            return;
+        }
+        reserve((space.getPegs() + 1) * (candidates.rows() + 2) + 5);
+        putCode(codes[0]);
+        out.put((byte)' ');
+        putNumber(guesses);
+        for (int r = 0; r < candidates.rows(); r++) {
+            out.put((byte)' ');
+            putCode(space.codeAt(candidates.guessAt(r)));
+        }
+        if (guesses > 0) {
+            out.put((byte)' ');
+            putCode(codes[0]); //the winning guess, which isn't a row of the candidates
+        }
+        out.put((byte)'\n');
+    }
+    
+    /**
+     * Plays a game, leaving its rows in the candidates
+     * @param secretIndex the index of the secret within the CodeSpace
+     * @return the number of guesses taken, or 0 if the secret wasn't found within StrategyEvaluator.MAX_GUESSES
+     */
+    private int solve(int secretIndex) {
+        candidates.reset();
+        for (int guesses = 1; guesses <= StrategyEvaluator.MAX_GUESSES; guesses++) {
+            int guess = strategy.nextGuess(candidates);
+            int feedback = table.score(guess, secretIndex);
+            if (Scorer.isWin(feedback, space.getPegs())) return guesses;
+            candidates.prune(guess, feedback);
+        }
+        return 0;
+    }
+    
+    private void putCode(int code) {
+        for (int i = 0; i < space.getPegs(); i++) {
+            out.put((byte)Character.forDigit(Scorer.colorAt(code, i), Scorer.MAX_COLORS));
+        }
+    }
+    
+    private void putNumber(int n) {
+        if (n >= 10) putNumber(n / 10);
+        out.put((byte)('0' + n % 10));
+    }
+    
+    /**
+     * Makes room in the output buffer, writing it out if needed
+     * @param bytes the number of bytes about to be put
+     * @throws IOException
+     */
+    private void reserve(int bytes) throws IOException {
+        if (out.remaining() < bytes) flush();
+    }
+    
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            output.write(out);
+        }
+        out.clear();
+    }
+    
+    /**
+     * @param args "score" or "solve", then the input file (standard input if there is none or it is "-"),
+     * optionally followed by --binary for binary records, --strategy=name for the solver (default cached-minimax,
+     * see Simulator.strategy) and board options such as --pegs=5 (see BoardConfig.fromArgs)
+     */
+    public static void main(String[] args) {
+        String[] positional = new String[2];
+        int count = 0;
+        boolean binary = false;
+        String strategyName = "cached-minimax";
+        for (String arg : args) {
+            if (arg.equals("--binary")) binary = true;
+            else if (arg.startsWith("--strategy=")) strategyName = arg.substring("--strategy=".length());
+            else if (!arg.startsWith("--") && count < positional.length) positional[count++] = arg;
+        }
+        try {
+            if (positional[0] == null || !(positional[0].equals("score") || positional[0].equals("solve")))
+                throw new IllegalArgumentException("Usage: PatternGuessCli score|solve [file] [--binary] [--strategy=name] [board options]");
+            Mode mode = positional[0].equals("score") ? Mode.SCORE : Mode.SOLVE;
+            CodeSpace space = BoardConfig.fromArgs(args).getSpace();
+            GuessStrategy strategy = mode == Mode.SOLVE ? Simulator.strategy(strategyName, space) : null;
+            PatternGuessCli cli = new PatternGuessCli(space, mode, binary, strategy);
+            boolean stdin = positional[1] == null || positional[1].equals("-");
+            try (ReadableByteChannel input = stdin ? new FileInputStream(FileDescriptor.in).getChannel()
+                    : FileChannel.open(Paths.get(positional[1]), StandardOpenOption.READ)) {
+                cli.run(input, new FileOutputStream(FileDescriptor.out).getChannel());
+            }
+        }
+        catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+}
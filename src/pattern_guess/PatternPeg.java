@@ -29,45 +29,56 @@
  */
 package pattern_guess;
 
-import javafx.scene.shape.Circle;
+import javafx.scene.paint.Color;
 
 /**
  * PatternPeg class
+ * There is one shared PatternPeg per color; get it with PatternPeg.of
  * @author Rachel Orrell
  */
-public class PatternPeg extends Peg {
-    { diameter = 25; }
-    
+public final class PatternPeg extends Peg {
     /**
-     * Default PatternPeg Constructor
+     * Diameter of every PatternPeg
      */
-    public PatternPeg() {
+    public static final int DIAMETER = 25;
+    
+    private static final PatternPeg[] PEGS = new PatternPeg[Peg.AvailableColor.values().length];
+    static {
+        for(Peg.AvailableColor ac : Peg.AvailableColor.values()) {
+            PEGS[ac.ordinal()] = new PatternPeg(ac);
+        }
+    }
+    
+    private PatternPeg(Peg.AvailableColor color) {
+        super(color, DIAMETER);
     }
     
     /**
-     * Alternate PatternPeg Constructor
      * @param color use enum Peg.AvailableColor
+     * @return the PatternPeg of the given color
      */
-    public PatternPeg(Peg.AvailableColor color) {
-        super(color);
+    public static PatternPeg of(Peg.AvailableColor color) {
+        return PEGS[color.ordinal()];
     }
     
     /**
-     * Alternate PatternPeg Constructor
-     * @param color use enum Peg.AvailableColor
-     * @param x_loc the x location
-     * @param y_loc the y location
+     * @param ordinal the ordinal of the color within Peg.AvailableColor
+     * @return the PatternPeg of the given color
+     * @throws ArrayIndexOutOfBoundsException if there is no color with the ordinal
      */
-    public PatternPeg(Peg.AvailableColor color, int x_loc, int y_loc) {
-        super(color, x_loc, y_loc);
+    public static PatternPeg of(int ordinal) {
+        return PEGS[ordinal];
     }
     
     /**
-     * Alternate PatternPeg Constructor
-     * @param circle a Circle object
-     * @throws IllegalArgumentException
+     * @param color a Color object, e.g. the fill of a peg button
+     * @return the PatternPeg of the given color
+     * @throws IllegalArgumentException if the color is not an allowable pattern peg color
      */
-    public PatternPeg(Circle circle) throws IllegalArgumentException {
-        super(circle);
+    public static PatternPeg of(Color color) throws IllegalArgumentException {
+        Peg.AvailableColor ac = Peg.AvailableColor.of(color);
+        if(ac == null)
+            throw new IllegalArgumentException("PatternPeg cannot be created from color " + color);
+        return PEGS[ac.ordinal()];
     }
 }
@@ -29,13 +29,16 @@
  */
 package pattern_guess;
 
+import java.util.HashMap;
+import java.util.Map;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
-import javafx.scene.shape.CircleBuilder;
 
 /**
  * Peg class
+ * Pegs are immutable and shared: there is one PatternPeg and one InfoPeg per color,
+ * and where a peg is drawn is decided by the board, not stored in the peg.
  * @author Rachel Orrell
  */
 public class Peg {
@@ -50,9 +53,23 @@ public class Peg {
         BLUE(Color.BLUE), 
         GREEN(Color.GREEN), 
         BLACK(Color.BLACK), 
-        WHITE(Color.WHITE);
+        WHITE(Color.WHITE), 
+        ORANGE(Color.ORANGE), 
+        PURPLE(Color.PURPLE), 
+        CYAN(Color.CYAN), 
+        PINK(Color.PINK), 
+        GRAY(Color.GRAY), 
+        NAVY(Color.NAVY);
         
-        private Color c;
+        private static final AvailableColor[] VALUES = values(); //values() clones the array on every call
+        private static final Map<Color, AvailableColor> BY_COLOR = new HashMap<>();
+        static {
+            for(AvailableColor ac : VALUES) {
+                BY_COLOR.put(ac.getColor(), ac);
+            }
+        }
+        
+        private final Color c;
         
         private AvailableColor(Color c) {
             this.c = c;
@@ -65,40 +82,58 @@ public class Peg {
             return this.c;
         }
         
+        /**
+         * Finds the AvailableColor for a given Color
+         * @param c a Color object
+         * @return the AvailableColor or null if the Color isn't available
+         */
+        public static AvailableColor of(Color c) {
+            return BY_COLOR.get(c);
+        }
+        
+        /**
+         * Finds the AvailableColor with a given ordinal
+         * @param ordinal the ordinal of the color
+         * @return the AvailableColor
+         * @throws ArrayIndexOutOfBoundsException if there is no color with the ordinal
+         */
+        public static AvailableColor of(int ordinal) {
+            return VALUES[ordinal];
+        }
+        
         /**
          * Checks if this enum contains a given Color
          * @param c a Color object
          * @return the index of the given Color or -1 if the Color isn't found
          */
         public static int contains(Color c) {
-            int index = 0;
-            for(AvailableColor ac : values()) {
-                if(ac.getColor().equals(c)) return index;
-                index++;
-            }
-            return -1;
+            AvailableColor ac = of(c);
+            return ac == null ? -1 : ac.ordinal();
         }
     }
     
-    protected Color color = Color.WHITE;
-    protected int x_loc;
-    protected int y_loc;
-    protected int diameter;
-    private String colorName;
+    private final Color color;
+    private final String colorName;
+    private final int colorOrdinal;
+    private final int diameter;
     
     /**
-     * @return the color
+     * Peg constructor, for the shared instances of the subclasses
+     * @param color the color of the Peg
+     * @param diameter the diameter of the Peg
      */
-    public Color getColor() {
-        return color;
+    protected Peg(PegColor color, int diameter) {
+        this.color = color.getColor();
+        this.colorName = color.name();
+        this.colorOrdinal = color.ordinal();
+        this.diameter = diameter;
     }
-
+    
     /**
-     * @param color the color to set
+     * @return the color
      */
-    public void setColor(PegColor color) {
-        this.color = color.getColor();
-        colorName = color.name();
+    public Color getColor() {
+        return color;
     }
     
     /**
@@ -107,33 +142,12 @@ public class Peg {
     public String getColorName() {
         return colorName;
     }
-
-    /**
-     * @return the x_loc
-     */
-    public int getX_loc() {
-        return x_loc;
-    }
-
-    /**
-     * @param x_loc the x_loc to set
-     */
-    public void setX_loc(int x_loc) {
-        this.x_loc = x_loc;
-    }
-
-    /**
-     * @return the y_loc
-     */
-    public int getY_loc() {
-        return y_loc;
-    }
-
+    
     /**
-     * @param y_loc the y_loc to set
+     * @return the ordinal of the color within its AvailableColor enum
      */
-    public void setY_loc(int y_loc) {
-        this.y_loc = y_loc;
+    public int getColorOrdinal() {
+        return colorOrdinal;
     }
 
     /**
@@ -142,55 +156,14 @@ public class Peg {
     public int getDiameter() {
         return diameter;
     }
-
-    /**
-     * Default Peg constructor
-     */
-    public Peg() {
-    }
-    
-    /**
-     * Alternate Peg constructor
-     * @param color use enum Peg.AvailableColor 
-     */
-    public Peg(PegColor color) {
-        this.setColor(color);
-    }
-    
-    /**
-     * Alternate Peg constructor
-     * @param color use enum Peg.AvailableColor
-     * @param x_loc the x location
-     * @param y_loc the y location
-     */
-    public Peg(PegColor color, int x_loc, int y_loc) {
-        this(color);
-        this.x_loc = x_loc;
-        this.y_loc = y_loc;
-    }
-    
-    /**
-     * Alternate Peg constructor
-     * @param circle
-     * @throws IllegalArgumentException
-     */
-    public Peg(Circle circle) throws IllegalArgumentException {
-        Color c = (Color)circle.getFill();
-        int index = AvailableColor.contains(c);
-        if(index > -1) {
-            this.color = c;
-            this.colorName = AvailableColor.values()[index].name();
-        }
-        else
-            throw new IllegalArgumentException("Peg cannot be created from circle color " + c.toString());
-    }
     
     /**
      * Draws the Peg as an oval in a graphics context
      * @param gc the graphics context in which to draw the Peg
+     * @param x_loc the x location of the left edge of the Peg
+     * @param y_loc the y location of the top edge of the Peg
      */
-    public void draw(GraphicsContext gc) {
-        gc.setStroke(Color.BLACK);
+    public void draw(GraphicsContext gc, double x_loc, double y_loc) {
         gc.setFill(color);
         gc.fillOval(x_loc, y_loc, diameter, diameter);
     }
@@ -201,13 +174,7 @@ public class Peg {
      */
     public Circle buildCircle() {
         int radius = diameter / 2;
-        Circle pegCircle = CircleBuilder.create()
-                .radius(radius)
-                .centerX(x_loc + radius)
-                .centerY(y_loc + radius)
-                .fill(color)
-                .build();
-        return pegCircle;
+        return new Circle(radius, radius, radius, color);
     }
     
     @Override
@@ -218,6 +185,14 @@ public class Peg {
         if(o == this) return true;
         if(!(o instanceof Peg)) return false;
         Peg p = (Peg)o;
-        return p.color.equals(this.color) && p.diameter == this.diameter;
+        return p.colorOrdinal == this.colorOrdinal && p.diameter == this.diameter && p.color.equals(this.color);
+    }
+    
+    @Override
+    /**
+     * Hashes the color and diameter, consistent with equals
+     */
+    public int hashCode() {
+        return 31 * diameter + colorOrdinal;
     }
 }
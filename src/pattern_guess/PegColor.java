@@ -48,4 +48,10 @@ public interface PegColor {
      * @return String
      */
     public String name();
+
+    /**
+     * This method is implicitly included in enumeration types, but is declared here for polymorphic purposes
+     * @return int
+     */
+    public int ordinal();
 }
@@ -0,0 +1,171 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+/**
+ * Scorer class
+ * Headless scoring engine for guesses, independent of JavaFX.
+ * A code is packed into a single int, holding the color ordinal of each peg in 4 bits
+ * (position 0 in the lowest bits), so up to 8 pegs and 16 colors are supported.
+ * Feedback is packed into a single int as (exact &lt;&lt; 4) | partial.
+ * None of the methods in this class allocate.
+ */
+public final class Scorer {
+    /**
+     * Number of bits used for each peg within a code
+     */
+    public static final int BITS_PER_PEG = 4;
+    /**
+     * Maximum number of pegs that fit in a code
+     */
+    public static final int MAX_PEGS = Integer.SIZE / BITS_PER_PEG;
+    /**
+     * Maximum number of colors that fit in a peg
+     */
+    public static final int MAX_COLORS = 1 << BITS_PER_PEG;
+    
+    private static final int PEG_MASK = MAX_COLORS - 1;
+    
+    private Scorer() {
+    }
+    
+    /**
+     * Scores a guess against a secret
+     * @param secret the packed secret code
+     * @param guess the packed guess code
+     * @param pegs the number of pegs in each code
+     * @return the packed feedback; use exact() and partial() to unpack it
+     */
+    public static int score(int secret, int guess, int pegs) {
+        int exact = 0;
+        long secretCounts = 0; //4-bit count per color for secret pegs that are not exact matches
+        long guessCounts = 0; //4-bit count per color for guess pegs that are not exact matches
+        for (int i = 0; i < pegs; i++) {
+            int s = colorAt(secret, i);
+            int g = colorAt(guess, i);
+            if (s == g) {
+                exact++;
+            }
+            else {
+                secretCounts += 1L << (s * BITS_PER_PEG);
+                guessCounts += 1L << (g * BITS_PER_PEG);
+            }
+        }
+        int partial = 0;
+        while (secretCounts != 0 && guessCounts != 0) { //each color contributes the smaller of its two counts
+            partial += Math.min((int)secretCounts & PEG_MASK, (int)guessCounts & PEG_MASK);
+            secretCounts >>>= BITS_PER_PEG;
+            guessCounts >>>= BITS_PER_PEG;
+        }
+        return pack(exact, partial);
+    }
+    
+    /**
+     * Packs exact and partial counts into a feedback value
+     * @param exact the number of pegs of the right color in the right position
+     * @param partial the number of pegs of the right color in the wrong position
+     * @return the packed feedback
+     */
+    public static int pack(int exact, int partial) {
+        return (exact << BITS_PER_PEG) | partial;
+    }
+    
+    /**
+     * @param feedback a packed feedback value
+     * @return the number of pegs of the right color in the right position
+     */
+    public static int exact(int feedback) {
+        return feedback >>> BITS_PER_PEG;
+    }
+    
+    /**
+     * @param feedback a packed feedback value
+     * @return the number of pegs of the right color in the wrong position
+     */
+    public static int partial(int feedback) {
+        return feedback & PEG_MASK;
+    }
+    
+    /**
+     * Checks if a feedback value means the guess was correct
+     * @param feedback a packed feedback value
+     * @param pegs the number of pegs in each code
+     * @return true if every peg was an exact match
+     */
+    public static boolean isWin(int feedback, int pegs) {
+        return feedback == pack(pegs, 0);
+    }
+    
+    /**
+     * @param pegs the number of pegs in each code
+     * @return an exclusive upper bound for packed feedback values, suitable for sizing histograms
+     */
+    public static int feedbackLimit(int pegs) {
+        return pack(pegs, 0) + 1;
+    }
+    
+    /**
+     * @param code a packed code
+     * @param position the zero-based peg position
+     * @return the color ordinal at the given position
+     */
+    public static int colorAt(int code, int position) {
+        return (code >>> (position * BITS_PER_PEG)) & PEG_MASK;
+    }
+    
+    /**
+     * Sets the color ordinal at a position within a code
+     * @param code a packed code
+     * @param position the zero-based peg position
+     * @param color the color ordinal
+     * @return the new packed code
+     */
+    public static int withColor(int code, int position, int color) {
+        int shift = position * BITS_PER_PEG;
+        return (code & ~(PEG_MASK << shift)) | (color << shift);
+    }
+    
+    /**
+     * Packs color ordinals into a code
+     * @param colors the color ordinals, one per peg
+     * @return the packed code
+     */
+    public static int encode(int... colors) {
+        if (colors.length > MAX_PEGS)
+            throw new IllegalArgumentException("A code cannot contain more than " + MAX_PEGS + " pegs");
+        int code = 0;
+        for (int i = 0; i < colors.length; i++) {
+            if (colors[i] < 0 || colors[i] >= MAX_COLORS)
+                throw new IllegalArgumentException("Color ordinal out of range: " + colors[i]);
+            code = withColor(code, i, colors[i]);
+        }
+        return code;
+    }
+}
@@ -0,0 +1,156 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * SecretGenerator class
+ * Seedable generator of uniformly random secrets for a CodeSpace.
+ * It uses the SplitMix64 algorithm (the one behind java.util.SplittableRandom) in counter form:
+ * the n-th secret depends only on the seed and n, so a run can be reproduced from its seed, and
+ * bulk streams give the same secrets whether they are consumed sequentially or split across threads.
+ * Each secret takes a single draw and is decoded in one pass, so no repeats are rejected and
+ * nothing is allocated. A single instance is not thread-safe; use split() for each thread.
+ */
+public class SecretGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    
+    private final CodeSpace space;
+    private final long seed;
+    private long position; //number of secrets drawn so far
+    
+    /**
+     * SecretGenerator Constructor with a random seed
+     * @param space the CodeSpace to draw secrets from
+     */
+    public SecretGenerator(CodeSpace space) {
+        this(space, ThreadLocalRandom.current().nextLong());
+    }
+    
+    /**
+     * Alternate SecretGenerator Constructor
+     * @param space the CodeSpace to draw secrets from
+     * @param seed the seed, which determines every secret drawn
+     */
+    public SecretGenerator(CodeSpace space, long seed) {
+        this.space = space;
+        this.seed = seed;
+    }
+    
+    /**
+     * @return the seed, which can be passed to the constructor to reproduce this generator
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * @return the CodeSpace secrets are drawn from
+     */
+    public CodeSpace getSpace() {
+        return space;
+    }
+    
+    /**
+     * @return the index of the next secret within the CodeSpace
+     */
+    public int nextIndex() {
+        return indexAt(position++);
+    }
+    
+    /**
+     * @return the next secret as a packed code
+     */
+    public int nextCode() {
+        return space.codeAt(nextIndex());
+    }
+    
+    /**
+     * Finds the secret at a position in this generator's sequence, without drawing it
+     * @param n the zero-based position
+     * @return the index of the secret within the CodeSpace
+     */
+    public int indexAt(long n) {
+        return (int)((mix64(seed + (n + 1) * GOLDEN_GAMMA) >>> 1) % space.size()); //the modulo bias is below 2^-32 for any CodeSpace
+    }
+    
+    /**
+     * Creates an independent generator, e.g. for another thread; the result depends only on
+     * this generator's seed and the number of secrets drawn or split from it so far
+     * @return the new SecretGenerator
+     */
+    public SecretGenerator split() {
+        return new SecretGenerator(space, mix64(seed ^ mix64(++position * GOLDEN_GAMMA)));
+    }
+    
+    /**
+     * Skips over a block of secrets so they can be looked up with indexAt, e.g. from several threads
+     * @param count the number of secrets to skip
+     * @return the position of the first secret in the block
+     */
+    public long reserve(long count) {
+        long start = position;
+        position += count;
+        return start;
+    }
+    
+    /**
+     * Draws a block of secrets as a stream, which may be consumed in parallel
+     * @param count the number of secrets to draw
+     * @return the secrets' indices within the CodeSpace, in sequence order
+     */
+    public IntStream indices(long count) {
+        long start = reserve(count);
+        return LongStream.range(start, start + count).mapToInt(this::indexAt);
+    }
+    
+    /**
+     * Draws a block of secrets as a stream, which may be consumed in parallel
+     * @param count the number of secrets to draw
+     * @return the secrets as packed codes, in sequence order
+     */
+    public IntStream codes(long count) {
+        return indices(count).map(space::codeAt);
+    }
+    
+    /**
+     * SplitMix64 finalizer
+     * @param z the value to mix
+     * @return the mixed value
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
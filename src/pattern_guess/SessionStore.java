@@ -0,0 +1,291 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SessionStore class
+ * Persistent store of games in a memory-mapped file, so sessions survive restarts without
+ * keeping any objects per game on the heap. Every game is a fixed-width record addressed by id:
+ * <pre>
+ * 0   int status     0 empty, otherwise Game.Status ordinal + 1
+ * 4   int rows       number of rows guessed
+ * 8   int secret     secret code index
+ * 12  int check      checksum of id and secret
+ * 16  per row: int guess code index, int (feedback &lt;&lt; 24 | 24-bit checksum of id, row, guess and feedback)
+ * </pre>
+ * A row is written before the row count that makes it visible, and every row carries its own
+ * checksum, so after a crash the store keeps the longest prefix of intact rows of each record
+ * and recomputes the status from them. The file grows and is mapped in 64 MB segments, so it
+ * may hold more records than a single mapping allows. The 64-byte header holds the board, the
+ * record size and the next id to hand out, so ids of deleted games are never reused.
+ */
+public class SessionStore implements Closeable {
+    private static final int MAGIC = 0x50475353; //"PGSS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int NEXT_ID_AT = 32; //offset of the next id within the header
+    private static final int SEGMENT_SIZE = 1 << 26;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    
+    private final BoardConfig config;
+    private final FileChannel channel;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private long repaired; //records whose rows were cut back during recovery
+    
+    /**
+     * Opens a store, creating the file if it doesn't exist and recovering every record if it does
+     * @param file the store file
+     * @param config the board every game in the store is played on
+     * @throws IOException
+     * @throws IllegalArgumentException if the file is not a store for the same board
+     */
+    public SessionStore(Path file, BoardConfig config) throws IOException, IllegalArgumentException {
+        this.config = config;
+        this.recordSize = 16 + 8 * config.getRows();
+        this.recordsPerSegment = SEGMENT_SIZE / recordSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE);
+        if (created) {
+            h.putInt(MAGIC).putInt(VERSION).putInt(config.getPegs()).putInt(config.getColors())
+                    .putInt(config.getRows()).putInt(config.isDuplicates() ? 1 : 0).putInt(recordSize);
+            h.putLong(NEXT_ID_AT, 1);
+            h.clear();
+            channel.write(h, 0);
+            channel.force(true);
+        }
+        else {
+            channel.read(h, 0);
+            h.flip();
+            if (h.getInt() != MAGIC || h.getInt() != VERSION)
+                throw new IllegalArgumentException(file + " is not a session store");
+            if (h.getInt() != config.getPegs() || h.getInt() != config.getColors() || h.getInt() != config.getRows()
+                    || h.getInt() != (config.isDuplicates() ? 1 : 0) || h.getInt() != recordSize)
+                throw new IllegalArgumentException(file + " holds games for a different board");
+        }
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (!created) recover();
+    }
+    
+    /**
+     * @return the number of records whose rows had to be cut back when the store was opened
+     */
+    public long getRepaired() {
+        return repaired;
+    }
+    
+    /**
+     * @return the id the next game will be given, one more than the highest id ever used
+     */
+    public long getNextId() {
+        return nextId.get();
+    }
+    
+    /**
+     * Stores a new game
+     * @param secretIndex the index of the game's secret within the board's CodeSpace
+     * @return the game's id
+     * @throws IOException
+     */
+    public long create(int secretIndex) throws IOException {
+        long id = nextId.getAndIncrement();
+        storeNextId(id + 1); //before the record is marked in use, so a crash can't hand its id out again
+        ByteBuffer b = segment(id, true);
+        int at = offset(id);
+        b.putInt(at + 4, 0);
+        b.putInt(at + 8, secretIndex);
+        b.putInt(at + 12, check(id, -1, secretIndex, 0));
+        b.putInt(at, Game.Status.PLAYING.ordinal() + 1); //written last, marking the record as in use
+        return id;
+    }
+    
+    /**
+     * Stores the next row of a game
+     * @param id the game's id
+     * @param guessIndex the index of the guess within the board's CodeSpace
+     * @param feedback the packed feedback given for the guess
+     * @param status the game's status after the guess
+     * @throws IOException
+     */
+    public void append(long id, int guessIndex, int feedback, Game.Status status) throws IOException {
+        ByteBuffer b = segment(id, false);
+        int at = offset(id);
+        int row = b.getInt(at + 4);
+        if (row >= config.getRows())
+            throw new IllegalStateException("Game " + id + " has no rows left");
+        b.putInt(at + 16 + row * 8, guessIndex);
+        b.putInt(at + 20 + row * 8, feedback << 24 | check(id, row, guessIndex, feedback));
+        b.putInt(at + 4, row + 1); //the row becomes visible only once it is complete
+        b.putInt(at, status.ordinal() + 1);
+    }
+    
+    /**
+     * Rebuilds a game from its record
+     * @param id the game's id
+     * @return the game, or null if there is no game with this id
+     * @throws IOException
+     */
+    public Game load(long id) throws IOException {
+        if (id < 1 || id >= nextId.get()) return null;
+        ByteBuffer b = segment(id, false);
+        int at = offset(id);
+        if (b.getInt(at) == 0) return null;
+        Game game = new Game(config, b.getInt(at + 8));
+        CodeSpace space = config.getSpace();
+        for (int row = 0, rows = b.getInt(at + 4); row < rows; row++) {
+            game.guess(space.codeAt(b.getInt(at + 16 + row * 8))); //replaying a guess reproduces its feedback
+        }
+        return game;
+    }
+    
+    /**
+     * Marks a game's record as empty
+     * @param id the game's id
+     * @throws IOException
+     */
+    public void delete(long id) throws IOException {
+        if (id < 1 || id >= nextId.get()) return;
+        segment(id, false).putInt(offset(id), 0);
+    }
+    
+    /**
+     * Flushes every change to the storage device
+     */
+    public void force() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+    
+    /**
+     * Validates every record, keeping the longest prefix of intact rows and recomputing the status
+     */
+    private void recover() throws IOException {
+        long records = (channel.size() - HEADER_SIZE + SEGMENT_SIZE - 1) / SEGMENT_SIZE * recordsPerSegment; //segments are always mapped whole
+        FeedbackTable table = FeedbackTable.of(config.getSpace());
+        long highest = 0;
+        for (long id = 1; id < records; id++) {
+            ByteBuffer b = segment(id, false);
+            int at = offset(id);
+            int status = b.getInt(at);
+            if (status == 0) continue;
+            int secret = b.getInt(at + 8);
+            if (status > Game.Status.values().length || secret < 0 || secret >= config.getSpace().size()
+                    || b.getInt(at + 12) != check(id, -1, secret, 0)) { //the record never finished being created
+                b.putInt(at, 0);
+                repaired++;
+                continue;
+            }
+            int rows = Math.min(Math.max(b.getInt(at + 4), 0), config.getRows());
+            int valid = 0;
+            Game.Status recovered = Game.Status.PLAYING;
+            while (valid < rows && recovered == Game.Status.PLAYING) {
+                int guess = b.getInt(at + 16 + valid * 8);
+                int entry = b.getInt(at + 20 + valid * 8);
+                int feedback = entry >>> 24;
+                if (guess < 0 || guess >= config.getSpace().size() || (entry & 0xFFFFFF) != check(id, valid, guess, feedback)
+                        || table.score(guess, secret) != feedback)
+                    break;
+                valid++;
+                if (Scorer.isWin(feedback, config.getPegs())) recovered = Game.Status.WON;
+                else if (valid == config.getRows()) recovered = Game.Status.LOST;
+            }
+            if (valid != b.getInt(at + 4) || status != recovered.ordinal() + 1) {
+                b.putInt(at + 4, valid);
+                b.putInt(at, recovered.ordinal() + 1);
+                repaired++;
+            }
+            highest = id;
+        }
+        nextId.set(Math.max(header.getLong(NEXT_ID_AT), highest + 1)); //the stored id also covers games deleted since
+        storeNextId(nextId.get());
+        force();
+    }
+    
+    /**
+     * Records the next id in the header, unless a later one is already there
+     */
+    private synchronized void storeNextId(long next) {
+        if (header.getLong(NEXT_ID_AT) < next) header.putLong(NEXT_ID_AT, next);
+    }
+    
+    /**
+     * Finds the mapped segment holding a record, mapping more of the file if needed
+     * @param id the record's id
+     * @param grow true to extend the file if the record lies beyond its end
+     * @return the segment
+     */
+    private synchronized ByteBuffer segment(long id, boolean grow) throws IOException {
+        int index = (int)(id / recordsPerSegment);
+        while (segments.size() <= index) {
+            long start = HEADER_SIZE + (long)segments.size() * SEGMENT_SIZE;
+            if (!grow && channel.size() <= start)
+                throw new IllegalArgumentException("No record for id " + id);
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE)); //extends the file as needed
+        }
+        return segments.get(index);
+    }
+    
+    private int offset(long id) {
+        return (int)(id % recordsPerSegment) * recordSize;
+    }
+    
+    /**
+     * @return a 24-bit checksum of a record entry
+     */
+    private static int check(long id, int row, int value, int feedback) {
+        long z = (id * GOLDEN_GAMMA) ^ ((long)row << 40) ^ ((long)feedback << 32) ^ (value & 0xFFFFFFFFL);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return (int)(z ^ (z >>> 31)) & 0xFFFFFF;
+    }
+}
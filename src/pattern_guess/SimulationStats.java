@@ -0,0 +1,152 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SimulationStats class
+ * Aggregate results of simulated games, safe to update from many threads at once
+ */
+public class SimulationStats {
+    private final int maxRows;
+    private final LongAdder[] wins; //number of games won, indexed by the number of guesses taken
+    private final LongAdder losses = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    
+    /**
+     * SimulationStats Constructor
+     * @param maxRows the number of guesses allowed per game
+     */
+    public SimulationStats(int maxRows) {
+        this.maxRows = maxRows;
+        this.wins = new LongAdder[maxRows + 1];
+        for (int i = 0; i < wins.length; i++) {
+            wins[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Adds a batch of results
+     * @param guessCounts games won, indexed by the number of guesses taken
+     * @param lost games lost
+     */
+    public void add(long[] guessCounts, long lost) {
+        for (int i = 1; i < guessCounts.length; i++) {
+            if (guessCounts[i] != 0) wins[i].add(guessCounts[i]);
+        }
+        if (lost != 0) losses.add(lost);
+    }
+    
+    /**
+     * @return the number of games played so far
+     */
+    public long getGames() {
+        return getWins() + losses.sum();
+    }
+    
+    /**
+     * @return the number of games won so far
+     */
+    public long getWins() {
+        long total = 0;
+        for (LongAdder w : wins) {
+            total += w.sum();
+        }
+        return total;
+    }
+    
+    /**
+     * @return the number of games lost so far
+     */
+    public long getLosses() {
+        return losses.sum();
+    }
+    
+    /**
+     * @param guesses a number of guesses
+     * @return the number of games won with exactly that many guesses
+     */
+    public long getWins(int guesses) {
+        return wins[guesses].sum();
+    }
+    
+    /**
+     * @return the fraction of games won, or 0 if no games have been played
+     */
+    public double getWinRate() {
+        long games = getGames();
+        return games == 0 ? 0 : (double)getWins() / games;
+    }
+    
+    /**
+     * @return the mean number of guesses taken in games that were won
+     */
+    public double getMeanGuesses() {
+        long won = 0;
+        long guesses = 0;
+        for (int i = 1; i <= maxRows; i++) {
+            long n = wins[i].sum();
+            won += n;
+            guesses += n * i;
+        }
+        return won == 0 ? 0 : (double)guesses / won;
+    }
+    
+    /**
+     * @return the number of games played per second since these stats were created
+     */
+    public double getGamesPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds == 0 ? 0 : getGames() / seconds;
+    }
+    
+    /**
+     * Writes a one-line progress summary
+     * @param out the stream to write to
+     */
+    public void printProgress(PrintStream out) {
+        out.printf("games=%d winRate=%.4f meanGuesses=%.4f gamesPerSecond=%.0f%n",
+                getGames(), getWinRate(), getMeanGuesses(), getGamesPerSecond());
+    }
+    
+    /**
+     * Writes the summary followed by the histogram of guesses per game
+     * @param out the stream to write to
+     */
+    public void print(PrintStream out) {
+        printProgress(out);
+        for (int i = 1; i <= maxRows; i++) {
+            out.printf("guesses=%d games=%d%n", i, wins[i].sum());
+        }
+        out.printf("lost games=%d%n", losses.sum());
+    }
+}
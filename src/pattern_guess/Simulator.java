@@ -0,0 +1,226 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Simulator class
+ * Headless batch mode that plays complete games with a GuessStrategy,
+ * spreading them across every core and reporting aggregate results as it goes
+ */
+public class Simulator {
+    /**
+     * Number of games played by one task before its results are added to the totals
+     */
+    static final int GAMES_PER_BATCH = 1024;
+    
+    private final CodeSpace space;
+    private final FeedbackTable table;
+    private final GuessStrategy strategy;
+    private final int maxRows;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Simulator Constructor using the common fork-join pool
+     * @param config the board to play on
+     * @param strategy the strategy that makes the guesses
+     */
+    public Simulator(BoardConfig config, GuessStrategy strategy) {
+        this(config.getSpace(), strategy, config.getRows());
+    }
+    
+    /**
+     * Alternate Simulator Constructor using the common fork-join pool
+     * @param space the CodeSpace of possible secrets
+     * @param strategy the strategy that makes the guesses
+     * @param maxRows the number of guesses allowed per game
+     */
+    public Simulator(CodeSpace space, GuessStrategy strategy, int maxRows) {
+        this(space, strategy, maxRows, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Alternate Simulator Constructor
+     * @param space the CodeSpace of possible secrets
+     * @param strategy the strategy that makes the guesses
+     * @param maxRows the number of guesses allowed per game
+     * @param pool the fork-join pool on which games are played
+     */
+    public Simulator(CodeSpace space, GuessStrategy strategy, int maxRows, ForkJoinPool pool) {
+        this.space = space;
+        this.table = FeedbackTable.of(space);
+        this.strategy = strategy;
+        this.maxRows = maxRows;
+        this.pool = pool;
+    }
+    
+    /**
+     * Plays a number of games against random secrets
+     * @param games the number of games to play
+     * @param progress the stream to which progress is reported every second, or null for none
+     * @return the aggregate results
+     */
+    public SimulationStats run(long games, PrintStream progress) {
+        return run(games, new SecretGenerator(space), progress);
+    }
+    
+    /**
+     * Plays a number of games against the secrets of a generator, so a run with the same seed
+     * plays exactly the same games however they are spread across threads
+     * @param games the number of games to play
+     * @param secrets the generator whose next games secrets are used
+     * @param progress the stream to which progress is reported every second, or null for none
+     * @return the aggregate results
+     */
+    public SimulationStats run(long games, SecretGenerator secrets, PrintStream progress) {
+        long start = secrets.reserve(games); //game n is played against the secret at position start + n
+        SimulationStats stats = new SimulationStats(maxRows);
+        ScheduledExecutorService reporter = null;
+        if (progress != null) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "simulation-progress");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(() -> stats.printProgress(progress), 1, 1, TimeUnit.SECONDS);
+        }
+        try {
+            long batches = (games + GAMES_PER_BATCH - 1) / GAMES_PER_BATCH;
+            pool.submit(() -> LongStream.range(0, batches).parallel().forEach(b ->
+                    playBatch(secrets, start + b * GAMES_PER_BATCH, (int)Math.min(GAMES_PER_BATCH, games - b * GAMES_PER_BATCH), stats))).join();
+        }
+        finally {
+            if (reporter != null) reporter.shutdownNow();
+        }
+        return stats;
+    }
+    
+    /**
+     * Plays a batch of games and adds the results to the totals
+     * @param secrets the generator of the secrets
+     * @param position the position of the first game's secret within the generator's sequence
+     * @param games the number of games in the batch
+     * @param stats the totals
+     */
+    private void playBatch(SecretGenerator secrets, long position, int games, SimulationStats stats) {
+        CandidateIndex candidates = new CandidateIndex(space);
+        long[] guessCounts = new long[maxRows + 1];
+        long lost = 0;
+        for (int i = 0; i < games; i++) {
+            int guesses = play(secrets.indexAt(position + i), candidates);
+            if (guesses > 0)
+                guessCounts[guesses]++;
+            else
+                lost++;
+        }
+        stats.add(guessCounts, lost);
+    }
+    
+    /**
+     * Plays one game
+     * @param secretIndex the index of the secret within the CodeSpace
+     * @param candidates a CandidateIndex to reuse for the game
+     * @return the number of guesses taken to win, or 0 if the game was lost
+     */
+    public int play(int secretIndex, CandidateIndex candidates) {
+        candidates.reset();
+        for (int row = 1; row <= maxRows; row++) {
+            int guess = strategy.nextGuess(candidates);
+            int feedback = table.score(guess, secretIndex);
+            if (Scorer.isWin(feedback, space.getPegs())) return row;
+            candidates.prune(guess, feedback);
+        }
+        return 0;
+    }
+    
+    /**
+     * Creates a strategy by name
+     * @param name "minimax", "entropy", "optimal" (an exact search, for small boards only), "first" (always guess the lowest remaining candidate)
+     * or "tree" (the DecisionTree in DecisionTree.DEFAULT_FILE, falling back to minimax off the tree);
+     * a "cached-" prefix, as in "cached-minimax", remembers the strategy's guesses in a CachingStrategy
+     * @param space the CodeSpace to play in
+     * @return the strategy
+     * @throws IllegalArgumentException
+     */
+    public static GuessStrategy strategy(String name, CodeSpace space) throws IllegalArgumentException {
+        if (name.startsWith("cached-"))
+            return new CachingStrategy(strategy(name.substring("cached-".length()), space));
+        switch (name) {
+            case "minimax":
+                return new MinimaxSolver(space);
+            case "entropy":
+                return new EntropySolver(space);
+            case "optimal":
+                return new OptimalSolver(space);
+            case "first":
+                return CandidateIndex::first;
+            case "tree":
+                try {
+                    DecisionTree tree = new DecisionTree(Paths.get(DecisionTree.DEFAULT_FILE), new MinimaxSolver(space));
+                    if (!tree.getSpace().equals(space))
+                        throw new IllegalArgumentException("The decision tree is for " + tree.getSpace());
+                    return tree;
+                }
+                catch (IOException ioe) {
+                    throw new IllegalArgumentException("Can't open " + DecisionTree.DEFAULT_FILE, ioe);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+    }
+    
+    /**
+     * @param args the number of games (default 1000000) and the strategy name (default minimax),
+     * optionally followed by board options such as --pegs=5 (see BoardConfig.fromArgs) and --seed=n to reproduce a run
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 && !args[0].startsWith("--") ? Long.parseLong(args[0]) : 1000000;
+        String name = args.length > 1 && !args[1].startsWith("--") ? args[1] : "minimax";
+        BoardConfig config = BoardConfig.fromArgs(args);
+        GuessStrategy strategy = strategy(name, config.getSpace());
+        String seed = null;
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) seed = arg.substring("--seed=".length());
+        }
+        SecretGenerator secrets = seed == null ? new SecretGenerator(config.getSpace()) : new SecretGenerator(config.getSpace(), Long.parseLong(seed));
+        System.out.println("seed=" + secrets.getSeed());
+        SimulationStats stats = new Simulator(config, strategy).run(games, secrets, System.out);
+        stats.print(System.out);
+        if (strategy instanceof CachingStrategy) System.out.println("cache " + ((CachingStrategy)strategy).getCache());
+    }
+}
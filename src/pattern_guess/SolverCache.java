@@ -0,0 +1,220 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SolverCache class
+ * Bounded memo of the guesses a strategy chose, keyed by feedback history. Rows are sorted
+ * before they form a key, since the candidates left by a set of rows don't depend on their
+ * order, so games that reach the same rows in any order share an entry. The cache is split into
+ * stripes, each an LRU map behind its own lock, so threads rarely wait on each other, and each
+ * stripe evicts its least recently used entry once it holds its share of the capacity.
+ */
+public class SolverCache {
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    /**
+     * A sorted feedback history: one long per row, the guess index above the feedback byte
+     */
+    static final class Key {
+        private final long[] rows;
+        private final int hash;
+        
+        Key(CandidateIndex candidates) {
+            rows = new long[candidates.rows()];
+            for (int r = 0; r < rows.length; r++) {
+                rows[r] = (long)candidates.guessAt(r) << 8 | candidates.feedbackAt(r);
+            }
+            Arrays.sort(rows);
+            hash = Arrays.hashCode(rows);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key)o).hash == hash && Arrays.equals(((Key)o).rows, rows);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    /**
+     * One lock's share of the cache, in access order
+     */
+    private final class Stripe extends LinkedHashMap<Key, Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+        
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+    
+    /**
+     * SolverCache Constructor with about two stripes per processor (a power of two), but no more stripes than entries
+     * @param capacity the most entries held at once
+     * @throws IllegalArgumentException
+     */
+    public SolverCache(int capacity) throws IllegalArgumentException {
+        this(capacity, Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1), Integer.highestOneBit(Math.max(1, capacity))));
+    }
+    
+    /**
+     * Alternate SolverCache Constructor
+     * @param capacity the most entries held at once
+     * @param stripes the number of independently locked parts, a power of two
+     * @throws IllegalArgumentException
+     */
+    public SolverCache(int capacity, int stripes) throws IllegalArgumentException {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1)
+            throw new IllegalArgumentException("The number of stripes must be a power of two");
+        if (capacity < stripes)
+            throw new IllegalArgumentException("The capacity must be at least the number of stripes");
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(capacity / stripes);
+        }
+    }
+    
+    /**
+     * Looks up the guess chosen for the same rows as the candidates
+     * @param candidates the candidates, whose rows form the key
+     * @return the cached guess index, or -1 if there is none
+     */
+    public int get(CandidateIndex candidates) {
+        return get(new Key(candidates));
+    }
+    
+    int get(Key key) {
+        Stripe stripe = stripe(key);
+        Integer guess;
+        synchronized (stripe) {
+            guess = stripe.get(key);
+        }
+        if (guess == null) {
+            misses.increment();
+            return -1;
+        }
+        hits.increment();
+        return guess;
+    }
+    
+    /**
+     * Records the guess chosen for the candidates' rows, evicting the least recently used entry of its stripe if needed
+     * @param candidates the candidates, whose rows form the key
+     * @param guess the guess index
+     */
+    public void put(CandidateIndex candidates, int guess) {
+        put(new Key(candidates), guess);
+    }
+    
+    void put(Key key, int guess) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, guess);
+        }
+    }
+    
+    private Stripe stripe(Key key) {
+        int h = key.hash * 0x9E3779B9; //spread the hash so that the stripe depends on all of its bits
+        return stripes[(h >>> 16) & (stripes.length - 1)];
+    }
+    
+    /**
+     * @return the number of entries held
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * @return the number of lookups that found a guess
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * @return the number of lookups that didn't find a guess
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * @return the number of entries evicted to stay within the capacity
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Removes every entry; the counters are kept
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return String.format("entries=%d hits=%d misses=%d hitRate=%.4f evictions=%d", size(), hits, getMisses(),
+                lookups == 0 ? 0 : (double)hits / lookups, getEvictions());
+    }
+}
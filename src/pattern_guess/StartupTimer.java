@@ -0,0 +1,74 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StartupTimer class
+ * Records how long each phase of startup took, e.g. launch, configure, scene and first frame.
+ * Phases are marked in order on a single thread; report() shows each phase's duration
+ * and the total since the timer was created.
+ */
+public final class StartupTimer {
+    private final long start = System.nanoTime();
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> times = new ArrayList<>();
+    
+    /**
+     * Ends the current phase
+     * @param phase the name of the phase that just finished
+     */
+    public void mark(String phase) {
+        phases.add(phase);
+        times.add(System.nanoTime());
+    }
+    
+    /**
+     * @return the milliseconds from the creation of the timer to the last mark
+     */
+    public double getTotalMillis() {
+        return times.isEmpty() ? 0 : (times.get(times.size() - 1) - start) / 1e6;
+    }
+    
+    /**
+     * @return one line per phase with its duration in milliseconds, then the total
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder(32 * (phases.size() + 1));
+        long previous = start;
+        for (int i = 0; i < phases.size(); i++) {
+            sb.append(String.format("%-14s %8.1f ms%n", phases.get(i), (times.get(i) - previous) / 1e6));
+            previous = times.get(i);
+        }
+        return sb.append(String.format("%-14s %8.1f ms", "total", getTotalMillis())).toString();
+    }
+}
@@ -0,0 +1,345 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * StrategyEvaluator class
+ * Plays a GuessStrategy against every secret of a board, in parallel, and streams one CSV line
+ * per secret (its index, its code, the guesses needed and whether that is within the board's
+ * rows) to a report file in secret order. Secrets are played a chunk at a time; after each chunk
+ * is written a checkpoint file beside the report records how far the sweep got, so a sweep of a
+ * large board that is stopped picks up from the last whole chunk when it is run again.
+ */
+public class StrategyEvaluator {
+    /**
+     * Number of secrets per checkpointed chunk
+     */
+    static final int CHUNK_SIZE = 4096;
+    /**
+     * Number of secrets played by one task within a chunk
+     */
+    static final int GAMES_PER_TASK = 64;
+    /**
+     * Largest number of guesses played before a secret counts as unsolved
+     */
+    public static final int MAX_GUESSES = 255;
+    private static final int CHUNKS_AHEAD = 2; //chunks played while the one before them is written
+    private static final String HEADER = "secret,code,guesses,won\n";
+    
+    private final BoardConfig config;
+    private final CodeSpace space;
+    private final FeedbackTable table;
+    private final GuessStrategy strategy;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Results of a sweep, indexed by the number of guesses needed
+     */
+    public static final class Summary {
+        private final int rows;
+        private final long[] guessCounts; //secrets by guesses needed; index 0 counts the unsolved
+        
+        Summary(int rows, long[] guessCounts) {
+            this.rows = rows;
+            this.guessCounts = guessCounts;
+        }
+        
+        /**
+         * @return the number of secrets played
+         */
+        public long getSecrets() {
+            return Arrays.stream(guessCounts).sum();
+        }
+        
+        /**
+         * @param guesses a number of guesses, from 1 to MAX_GUESSES
+         * @return the number of secrets found with exactly that many guesses
+         */
+        public long getSecrets(int guesses) {
+            return guessCounts[guesses];
+        }
+        
+        /**
+         * @return the number of secrets not found within MAX_GUESSES guesses
+         */
+        public long getUnsolved() {
+            return guessCounts[0];
+        }
+        
+        /**
+         * @return the number of secrets that would lose the game: those needing more guesses than the board has rows
+         */
+        public long getLosses() {
+            long losses = guessCounts[0];
+            for (int i = rows + 1; i < guessCounts.length; i++) {
+                losses += guessCounts[i];
+            }
+            return losses;
+        }
+        
+        /**
+         * @return the mean number of guesses needed over the solved secrets
+         */
+        public double getMeanGuesses() {
+            long solved = 0;
+            long guesses = 0;
+            for (int i = 1; i < guessCounts.length; i++) {
+                solved += guessCounts[i];
+                guesses += guessCounts[i] * i;
+            }
+            return solved == 0 ? 0 : (double)guesses / solved;
+        }
+        
+        /**
+         * @return the worst case: the largest number of guesses needed for a solved secret
+         */
+        public int getMaxGuesses() {
+            for (int i = guessCounts.length - 1; i > 0; i--) {
+                if (guessCounts[i] > 0) return i;
+            }
+            return 0;
+        }
+        
+        /**
+         * Writes the summary followed by the histogram of guesses per secret
+         * @param out the stream to write to
+         */
+        public void print(PrintStream out) {
+            out.printf("secrets=%d meanGuesses=%.4f maxGuesses=%d losses=%d unsolved=%d%n",
+                    getSecrets(), getMeanGuesses(), getMaxGuesses(), getLosses(), getUnsolved());
+            for (int i = 1; i <= getMaxGuesses(); i++) {
+                out.printf("guesses=%d secrets=%d%n", i, guessCounts[i]);
+            }
+        }
+    }
+    
+    /**
+     * StrategyEvaluator Constructor using the common fork-join pool
+     * @param config the board to play on
+     * @param strategy the strategy that makes the guesses
+     */
+    public StrategyEvaluator(BoardConfig config, GuessStrategy strategy) {
+        this(config, strategy, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Alternate StrategyEvaluator Constructor
+     * @param config the board to play on
+     * @param strategy the strategy that makes the guesses
+     * @param pool the fork-join pool on which games are played
+     */
+    public StrategyEvaluator(BoardConfig config, GuessStrategy strategy, ForkJoinPool pool) {
+        this.config = config;
+        this.space = config.getSpace();
+        this.table = FeedbackTable.of(space);
+        this.strategy = strategy;
+        this.pool = pool;
+    }
+    
+    /**
+     * Plays every secret and writes the report, resuming from the report's checkpoint if there
+     * is one for the same board and strategy name. The checkpoint is deleted once the sweep is done.
+     * @param report the CSV report file
+     * @param name the strategy's name, which the checkpoint must match to be resumed
+     * @param progress the stream to which progress is reported after about every second, or null for none
+     * @return the results for every secret, including those from a resumed sweep
+     * @throws IOException
+     */
+    public Summary evaluate(Path report, String name, PrintStream progress) throws IOException {
+        Path checkpoint = report.resolveSibling(report.getFileName() + ".checkpoint");
+        String board = config.toString();
+        long[] guessCounts = new long[MAX_GUESSES + 1];
+        int chunks = (space.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int done = 0;
+        long bytes = 0;
+        Properties saved = readCheckpoint(checkpoint);
+        if (saved != null && board.equals(saved.getProperty("board")) && name.equals(saved.getProperty("strategy"))) {
+            done = Integer.parseInt(saved.getProperty("chunks"));
+            bytes = Long.parseLong(saved.getProperty("bytes"));
+            String[] counts = saved.getProperty("guesses").split(",");
+            for (int i = 0; i < counts.length; i++) {
+                guessCounts[i] = Long.parseLong(counts[i]);
+            }
+            if (progress != null) progress.printf("resuming at secret %d of %d%n", Math.min(done * CHUNK_SIZE, space.size()), space.size());
+        }
+        try (FileChannel out = FileChannel.open(report, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (out.size() < bytes)
+                throw new IOException(report + " is shorter than its checkpoint says");
+            out.truncate(bytes); //drop any lines written after the checkpoint
+            out.position(bytes);
+            if (bytes == 0) write(out, HEADER);
+            ArrayDeque<ForkJoinTask<byte[]>> playing = new ArrayDeque<>();
+            int next = done; //the next chunk to start playing
+            long resumed = Math.min((long)done * CHUNK_SIZE, space.size());
+            long start = System.nanoTime();
+            long reported = start;
+            while (done < chunks) {
+                while (next < chunks && playing.size() < CHUNKS_AHEAD) {
+                    int chunk = next++;
+                    playing.add(pool.submit(() -> playChunk(chunk)));
+                }
+                byte[] guesses = playing.remove().join(); //chunks are written in order, whichever finishes first
+                int first = done * CHUNK_SIZE;
+                StringBuilder lines = new StringBuilder(guesses.length * 16);
+                for (int i = 0; i < guesses.length; i++) {
+                    int n = guesses[i] & 0xFF;
+                    guessCounts[n]++;
+                    lines.append(first + i).append(',').append(space.formatCode(space.codeAt(first + i))).append(',')
+                            .append(n).append(',').append(n > 0 && n <= config.getRows()).append('\n');
+                }
+                write(out, lines);
+                done++;
+                writeCheckpoint(checkpoint, board, name, done, out.position(), guessCounts);
+                if (progress != null && System.nanoTime() - reported >= 1000000000L) {
+                    reported = System.nanoTime();
+                    long secrets = Math.min((long)done * CHUNK_SIZE, space.size());
+                    progress.printf("secrets=%d/%d meanGuesses=%.4f secretsPerSecond=%.0f%n", secrets, space.size(),
+                            new Summary(config.getRows(), guessCounts).getMeanGuesses(), (secrets - resumed) / ((reported - start) / 1e9));
+                }
+            }
+        }
+        Files.deleteIfExists(checkpoint);
+        return new Summary(config.getRows(), guessCounts);
+    }
+    
+    /**
+     * Plays every secret of a chunk, spread across the pool
+     * @param chunk the chunk number
+     * @return the guesses needed for each secret of the chunk, 0 if unsolved
+     */
+    private byte[] playChunk(int chunk) {
+        int first = chunk * CHUNK_SIZE;
+        byte[] guesses = new byte[Math.min(CHUNK_SIZE, space.size() - first)];
+        IntStream.range(0, (guesses.length + GAMES_PER_TASK - 1) / GAMES_PER_TASK).parallel().forEach(task -> {
+            CandidateIndex candidates = new CandidateIndex(space);
+            for (int i = task * GAMES_PER_TASK; i < Math.min(guesses.length, (task + 1) * GAMES_PER_TASK); i++) {
+                guesses[i] = (byte)play(first + i, candidates);
+            }
+        });
+        return guesses;
+    }
+    
+    /**
+     * Plays one game, ignoring the board's row limit
+     * @param secretIndex the index of the secret within the CodeSpace
+     * @param candidates a CandidateIndex to reuse for the game
+     * @return the number of guesses taken to find the secret, or 0 if it wasn't found within MAX_GUESSES
+     */
+    public int play(int secretIndex, CandidateIndex candidates) {
+        candidates.reset();
+        for (int guesses = 1; guesses <= MAX_GUESSES; guesses++) {
+            int guess = strategy.nextGuess(candidates);
+            int feedback = table.score(guess, secretIndex);
+            if (Scorer.isWin(feedback, space.getPegs())) return guesses;
+            candidates.prune(guess, feedback);
+        }
+        return 0;
+    }
+    
+    private static void write(FileChannel out, CharSequence text) throws IOException {
+        ByteBuffer bytes = StandardCharsets.US_ASCII.encode(text.toString());
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+    
+    /**
+     * @param checkpoint the checkpoint file
+     * @return the saved checkpoint, or null if there is none
+     * @throws IOException
+     */
+    private static Properties readCheckpoint(Path checkpoint) throws IOException {
+        if (!Files.exists(checkpoint)) return null;
+        Properties saved = new Properties();
+        try (InputStream in = Files.newInputStream(checkpoint)) {
+            saved.load(in);
+        }
+        return saved;
+    }
+    
+    /**
+     * Replaces the checkpoint file, by way of a temporary file so a crash never leaves half of one
+     */
+    private static void writeCheckpoint(Path checkpoint, String board, String name, int chunks, long bytes, long[] guessCounts) throws IOException {
+        Properties saved = new Properties();
+        saved.setProperty("board", board);
+        saved.setProperty("strategy", name);
+        saved.setProperty("chunks", Integer.toString(chunks));
+        saved.setProperty("bytes", Long.toString(bytes));
+        int last = guessCounts.length - 1;
+        while (last > 0 && guessCounts[last] == 0) last--; //leave out the trailing zeros
+        StringBuilder counts = new StringBuilder();
+        for (int i = 0; i <= last; i++) {
+            if (i > 0) counts.append(',');
+            counts.append(guessCounts[i]);
+        }
+        saved.setProperty("guesses", counts.toString());
+        Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            saved.store(out, "StrategyEvaluator checkpoint");
+        }
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * @param args the report file (default evaluation.csv) and the strategy name (default minimax, see Simulator.strategy),
+     * optionally followed by board options such as --pegs=5 (see BoardConfig.fromArgs)
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        Path report = Paths.get(args.length > 0 && !args[0].startsWith("--") ? args[0] : "evaluation.csv");
+        String name = args.length > 1 && !args[1].startsWith("--") ? args[1] : "minimax";
+        BoardConfig config = BoardConfig.fromArgs(args);
+        StrategyEvaluator evaluator = new StrategyEvaluator(config, Simulator.strategy(name, config.getSpace()));
+        long start = System.nanoTime();
+        Summary summary = evaluator.evaluate(report, name, System.out);
+        summary.print(System.out);
+        System.out.printf("%s: %s, %s, seconds=%.2f%n", report, config, name, (System.nanoTime() - start) / 1e9);
+    }
+}
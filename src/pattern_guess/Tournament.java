@@ -0,0 +1,345 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/**
+ * Tournament class
+ * Plays several GuessStrategy entries against the same seeded sequence of secrets, drawn as
+ * PatternGuess.newSolution draws them, and ranks them by games won and then by mean guesses.
+ * Games are split into batches per entry, and the batches of every entry are scheduled together
+ * on a work-stealing fork-join pool, so a slow entry doesn't leave cores idle.
+ * <p>
+ * Every move is timed. A move that takes longer than the per-move budget forfeits its game, as
+ * does a guess that isn't a code of the board. The budget is enforced by measuring the move, not
+ * by interrupting it, since a strategy can't be stopped safely part way through a guess.
+ */
+public class Tournament {
+    /**
+     * Number of games of one entry played by one task before its results are added to the entry's totals
+     */
+    static final int GAMES_PER_BATCH = 256;
+    
+    private final BoardConfig config;
+    private final FeedbackTable table;
+    private final long budgetNanos;
+    private final ForkJoinPool pool;
+    private final List<Entry> entries = new ArrayList<>();
+    
+    /**
+     * An entry's strategy and results, safe to update from many threads at once
+     */
+    private static final class Entry {
+        final String name;
+        final GuessStrategy strategy;
+        final LongAdder games = new LongAdder();
+        final LongAdder wins = new LongAdder();
+        final LongAdder forfeits = new LongAdder();
+        final LongAdder guesses = new LongAdder(); //summed over the games won
+        final LongAccumulator maxGuesses = new LongAccumulator(Math::max, 0);
+        final LongAdder moves = new LongAdder();
+        final LongAdder moveNanos = new LongAdder();
+        final LongAccumulator maxMoveNanos = new LongAccumulator(Math::max, 0);
+        
+        Entry(String name, GuessStrategy strategy) {
+            this.name = name;
+            this.strategy = strategy;
+        }
+    }
+    
+    /**
+     * An entry's place in the results
+     */
+    public static final class Standing {
+        private final String name;
+        private final long games;
+        private final long wins;
+        private final long forfeits;
+        private final double meanGuesses;
+        private final int maxGuesses;
+        private final double meanMoveMicros;
+        private final double maxMoveMicros;
+        
+        private Standing(Entry e) {
+            name = e.name;
+            games = e.games.sum();
+            wins = e.wins.sum();
+            forfeits = e.forfeits.sum();
+            meanGuesses = wins == 0 ? 0 : (double)e.guesses.sum() / wins;
+            maxGuesses = (int)e.maxGuesses.get();
+            long moves = e.moves.sum();
+            meanMoveMicros = moves == 0 ? 0 : e.moveNanos.sum() / 1e3 / moves;
+            maxMoveMicros = e.maxMoveNanos.get() / 1e3;
+        }
+        
+        /**
+         * @return the entry's name
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * @return the number of games played
+         */
+        public long getGames() {
+            return games;
+        }
+        
+        /**
+         * @return the number of games won within the board's rows
+         */
+        public long getWins() {
+            return wins;
+        }
+        
+        /**
+         * @return the number of games lost by running out of rows
+         */
+        public long getLosses() {
+            return games - wins - forfeits;
+        }
+        
+        /**
+         * @return the number of games forfeited by a move over the time budget or an invalid guess
+         */
+        public long getForfeits() {
+            return forfeits;
+        }
+        
+        /**
+         * @return the mean number of guesses taken in games that were won
+         */
+        public double getMeanGuesses() {
+            return meanGuesses;
+        }
+        
+        /**
+         * @return the largest number of guesses taken in a game that was won
+         */
+        public int getMaxGuesses() {
+            return maxGuesses;
+        }
+        
+        /**
+         * @return the mean time taken by a move, in microseconds
+         */
+        public double getMeanMoveMicros() {
+            return meanMoveMicros;
+        }
+        
+        /**
+         * @return the longest time taken by a move, in microseconds
+         */
+        public double getMaxMoveMicros() {
+            return maxMoveMicros;
+        }
+    }
+    
+    /**
+     * Tournament Constructor using the common fork-join pool
+     * @param config the board to play on
+     * @param budget the time allowed for each move
+     * @param unit the unit of the budget
+     * @throws IllegalArgumentException
+     */
+    public Tournament(BoardConfig config, long budget, TimeUnit unit) throws IllegalArgumentException {
+        this(config, budget, unit, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Alternate Tournament Constructor
+     * @param config the board to play on
+     * @param budget the time allowed for each move
+     * @param unit the unit of the budget
+     * @param pool the fork-join pool on which games are played
+     * @throws IllegalArgumentException
+     */
+    public Tournament(BoardConfig config, long budget, TimeUnit unit, ForkJoinPool pool) throws IllegalArgumentException {
+        if (budget <= 0)
+            throw new IllegalArgumentException("The time budget must be positive");
+        this.config = config;
+        this.table = FeedbackTable.of(config.getSpace());
+        this.budgetNanos = unit.toNanos(budget);
+        this.pool = pool;
+    }
+    
+    /**
+     * Enters a strategy
+     * @param name the name shown in the standings
+     * @param strategy the strategy, which must be safe to call from several threads at once
+     */
+    public void add(String name, GuessStrategy strategy) {
+        entries.add(new Entry(name, strategy));
+    }
+    
+    /**
+     * Plays every entry against the same secrets
+     * @param games the number of games each entry plays
+     * @param seed the seed of the secrets, so a tournament can be replayed
+     * @param progress the stream to which progress is reported every second, or null for none
+     * @return the standings, best first
+     */
+    public List<Standing> run(long games, long seed, PrintStream progress) {
+        SecretGenerator secrets = new SecretGenerator(config.getSpace(), seed); //game n of every entry is played against secret n
+        long batches = (games + GAMES_PER_BATCH - 1) / GAMES_PER_BATCH;
+        ScheduledExecutorService reporter = null;
+        if (progress != null) {
+            long start = System.nanoTime();
+            long total = games * entries.size();
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "tournament-progress");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(() -> {
+                long played = entries.stream().mapToLong(e -> e.games.sum()).sum();
+                progress.printf("games=%d/%d gamesPerSecond=%.0f%n", played, total, played / ((System.nanoTime() - start) / 1e9));
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+        try {
+            //batch b of entry e is task b * entries + e, so every entry's early batches are played first
+            pool.submit(() -> LongStream.range(0, batches * entries.size()).parallel().forEach(task -> {
+                long first = task / entries.size() * GAMES_PER_BATCH;
+                playBatch(entries.get((int)(task % entries.size())), secrets, first, (int)Math.min(GAMES_PER_BATCH, games - first));
+            })).join();
+        }
+        finally {
+            if (reporter != null) reporter.shutdownNow();
+        }
+        List<Standing> standings = new ArrayList<>();
+        for (Entry e : entries) {
+            standings.add(new Standing(e));
+        }
+        Collections.sort(standings, Comparator.comparingLong(Standing::getWins).reversed().thenComparingDouble(Standing::getMeanGuesses));
+        return standings;
+    }
+    
+    /**
+     * Plays a batch of games for one entry and adds the results to its totals
+     * @param entry the entry
+     * @param secrets the generator of the secrets
+     * @param position the position of the first game's secret within the generator's sequence
+     * @param games the number of games in the batch
+     */
+    private void playBatch(Entry entry, SecretGenerator secrets, long position, int games) {
+        CodeSpace space = config.getSpace();
+        CandidateIndex candidates = new CandidateIndex(space);
+        long wins = 0;
+        long forfeits = 0;
+        long guesses = 0;
+        long maxGuesses = 0;
+        long moves = 0;
+        long moveNanos = 0;
+        long maxMoveNanos = 0;
+        for (int i = 0; i < games; i++) {
+            int secretIndex = secrets.indexAt(position + i);
+            candidates.reset();
+            for (int row = 1; row <= config.getRows(); row++) {
+                long start = System.nanoTime();
+                int guess = entry.strategy.nextGuess(candidates);
+                long nanos = System.nanoTime() - start;
+                moves++;
+                moveNanos += nanos;
+                maxMoveNanos = Math.max(maxMoveNanos, nanos);
+                if (nanos > budgetNanos || guess < 0 || guess >= space.size()) {
+                    forfeits++;
+                    break;
+                }
+                int feedback = table.score(guess, secretIndex);
+                if (Scorer.isWin(feedback, space.getPegs())) {
+                    wins++;
+                    guesses += row;
+                    maxGuesses = Math.max(maxGuesses, row);
+                    break;
+                }
+                candidates.prune(guess, feedback);
+            }
+        }
+        entry.wins.add(wins);
+        entry.forfeits.add(forfeits);
+        entry.guesses.add(guesses);
+        entry.maxGuesses.accumulate(maxGuesses);
+        entry.moves.add(moves);
+        entry.moveNanos.add(moveNanos);
+        entry.maxMoveNanos.accumulate(maxMoveNanos);
+        entry.games.add(games);
+    }
+    
+    /**
+     * Writes the standings as a table
+     * @param standings the standings, best first
+     * @param out the stream to write to
+     */
+    public static void print(List<Standing> standings, PrintStream out) {
+        out.printf("%-4s %-12s %10s %10s %8s %8s %11s %9s %14s %13s%n", "rank", "entry", "games", "wins", "losses", "forfeits",
+                "meanGuesses", "maxGuesses", "meanMoveMicros", "maxMoveMicros");
+        int rank = 1;
+        for (Standing s : standings) {
+            out.printf("%-4d %-12s %10d %10d %8d %8d %11.4f %9d %14.1f %13.1f%n", rank++, s.getName(), s.getGames(), s.getWins(),
+                    s.getLosses(), s.getForfeits(), s.getMeanGuesses(), s.getMaxGuesses(), s.getMeanMoveMicros(), s.getMaxMoveMicros());
+        }
+    }
+    
+    /**
+     * @param args the number of games per entry (default 100000) and a comma-separated list of strategy names
+     * (default minimax,entropy,first; see Simulator.strategy), optionally followed by board options such as --pegs=5
+     * (see BoardConfig.fromArgs), --seed=n to replay a tournament and --budget-ms=n for the time allowed per move (default 100)
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 && !args[0].startsWith("--") ? Long.parseLong(args[0]) : 100000;
+        String names = args.length > 1 && !args[1].startsWith("--") ? args[1] : "minimax,entropy,first";
+        BoardConfig config = BoardConfig.fromArgs(args);
+        long seed = new SecretGenerator(config.getSpace()).getSeed();
+        long budgetMillis = 100;
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            if (arg.startsWith("--budget-ms=")) budgetMillis = Long.parseLong(arg.substring("--budget-ms=".length()));
+        }
+        Tournament tournament = new Tournament(config, budgetMillis, TimeUnit.MILLISECONDS);
+        for (String name : names.split(",")) {
+            tournament.add(name, Simulator.strategy(name, config.getSpace()));
+        }
+        System.out.println("seed=" + seed + " board=" + config + " budgetMs=" + budgetMillis + " parallelism=" + ForkJoinPool.commonPool().getParallelism());
+        print(tournament.run(games, seed, System.out), System.out);
+    }
+}
@@ -0,0 +1,75 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * BoardConfigTest class
+ * Unit tests for BoardConfig.
+ */
+public class BoardConfigTest {
+    
+    @Test
+    public void defaultsToClassicBoard() {
+        assertSame(BoardConfig.CLASSIC, BoardConfig.fromArgs(new String[0]));
+        assertSame(BoardConfig.CLASSIC, BoardConfig.fromArgs(new String[] {"--rows=9", "other", "--seed=4"}));
+        assertSame(CodeSpace.CLASSIC, BoardConfig.CLASSIC.getSpace());
+    }
+    
+    @Test
+    public void parsesBoardOptions() {
+        BoardConfig config = BoardConfig.fromArgs(new String[] {"--pegs=8", "--colors=12", "--rows=12", "--duplicates=true"});
+        assertEquals(8, config.getPegs());
+        assertEquals(12, config.getColors());
+        assertEquals(12, config.getRows());
+        assertTrue(config.isDuplicates());
+        assertEquals(new CodeSpace(8, 12, true), config.getSpace());
+        assertEquals(429981696, config.getSpace().size());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonNumericValues() {
+        BoardConfig.fromArgs(new String[] {"--pegs=four"});
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyPegs() {
+        BoardConfig.fromArgs(new String[] {"--pegs=9", "--colors=12"});
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoRows() {
+        new BoardConfig(4, 6, 0, false);
+    }
+}
@@ -0,0 +1,137 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * CandidateIndexTest class
+ * Unit tests for CandidateIndex.
+ */
+public class CandidateIndexTest {
+    private final CodeSpace space = CodeSpace.CLASSIC;
+    private final FeedbackTable table = FeedbackTable.of(space);
+    
+    @Test
+    public void startsWithEveryCode() {
+        CandidateIndex candidates = new CandidateIndex(space);
+        assertEquals(space.size(), candidates.remaining());
+        assertEquals(0, candidates.first());
+        assertEquals(0, candidates.rows());
+    }
+    
+    @Test
+    public void pruneKeepsExactlyTheConsistentCodes() {
+        CandidateIndex candidates = new CandidateIndex(space);
+        int secret = 200;
+        int[] guesses = {0, 77, 311};
+        for (int guess : guesses) {
+            candidates.prune(guess, table.score(guess, secret));
+        }
+        int expected = 0;
+        for (int i = 0; i < space.size(); i++) {
+            boolean consistent = true;
+            for (int guess : guesses) {
+                consistent &= table.score(guess, i) == table.score(guess, secret);
+            }
+            assertEquals(consistent, candidates.contains(i));
+            if (consistent) expected++;
+        }
+        assertEquals(expected, candidates.remaining());
+        assertTrue(candidates.contains(secret));
+    }
+    
+    @Test
+    public void prunesUntabulatedBoards() {
+        CodeSpace large = new CodeSpace(6, 6, true);
+        assertFalse(FeedbackTable.of(large).isTabulated());
+        CandidateIndex candidates = new CandidateIndex(large);
+        int secret = large.codeAt(12345);
+        int[] guesses = {0, 777, 20000};
+        for (int guess : guesses) {
+            candidates.prune(guess, Scorer.score(secret, large.codeAt(guess), 6));
+        }
+        int expected = 0;
+        for (int i = 0; i < large.size(); i++) {
+            boolean consistent = true;
+            for (int guess : guesses) {
+                consistent &= Scorer.score(large.codeAt(i), large.codeAt(guess), 6) == Scorer.score(secret, large.codeAt(guess), 6);
+            }
+            assertEquals(consistent, candidates.contains(i));
+            if (consistent) expected++;
+        }
+        assertEquals(expected, candidates.remaining());
+        assertTrue(candidates.contains(12345));
+    }
+    
+    @Test
+    public void recordsRows() {
+        CandidateIndex candidates = new CandidateIndex(space);
+        for (int row = 0; row < 20; row++) { //more rows than the initial history holds
+            candidates.prune(row, table.score(row, 359));
+        }
+        assertEquals(20, candidates.rows());
+        assertEquals(17, candidates.guessAt(17));
+        assertEquals(table.score(17, 359), candidates.feedbackAt(17));
+    }
+    
+    @Test
+    public void iteratesInAscendingOrder() {
+        CandidateIndex candidates = new CandidateIndex(space);
+        candidates.prune(5, table.score(5, 100));
+        int[] indices = new int[candidates.remaining()];
+        assertEquals(indices.length, candidates.copyTo(indices));
+        int n = 0;
+        for (int i = candidates.first(); i >= 0; i = candidates.next(i)) {
+            assertEquals(indices[n++], i);
+        }
+        assertEquals(indices.length, n);
+        int[] count = new int[1];
+        candidates.forEach(i -> assertEquals(indices[count[0]++], i));
+        assertEquals(indices.length, count[0]);
+    }
+    
+    @Test
+    public void copyIsIndependent() {
+        CandidateIndex candidates = new CandidateIndex(space);
+        candidates.prune(0, table.score(0, 42));
+        CandidateIndex copy = new CandidateIndex(candidates);
+        copy.prune(9, table.score(9, 42));
+        assertEquals(1, candidates.rows());
+        assertEquals(2, copy.rows());
+        assertTrue(copy.remaining() <= candidates.remaining());
+        copy.reset();
+        assertEquals(space.size(), copy.remaining());
+        assertFalse(candidates.remaining() == space.size());
+    }
+}
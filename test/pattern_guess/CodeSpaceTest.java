@@ -0,0 +1,134 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * CodeSpaceTest class
+ * Unit tests for CodeSpace.
+ */
+public class CodeSpaceTest {
+    
+    @Test
+    public void classicHas360Codes() {
+        assertEquals(360, CodeSpace.CLASSIC.size());
+        assertEquals(6 * 6 * 6 * 6, new CodeSpace(4, 6, true).size());
+        assertEquals(1, new CodeSpace(1, 1, true).size());
+    }
+    
+    @Test
+    public void indicesRoundTrip() {
+        CodeSpace[] spaces = {CodeSpace.CLASSIC, new CodeSpace(4, 6, true), new CodeSpace(5, 8), new CodeSpace(3, 16, true)};
+        for (CodeSpace space : spaces) {
+            Set<Integer> codes = new HashSet<>();
+            for (int i = 0; i < space.size(); i++) {
+                int code = space.codeAt(i);
+                assertEquals(space + " index " + i, i, space.indexOf(code));
+                assertTrue(codes.add(code)); //every index maps to a distinct code
+            }
+        }
+    }
+    
+    @Test
+    public void codesWithoutRepeatsHaveDistinctColors() {
+        CodeSpace space = new CodeSpace(4, 6);
+        for (int i = 0; i < space.size(); i++) {
+            int code = space.codeAt(i);
+            int seen = 0;
+            for (int p = 0; p < space.getPegs(); p++) {
+                int color = Scorer.colorAt(code, p);
+                assertTrue(color < space.getColors());
+                assertEquals(0, seen & (1 << color));
+                seen |= 1 << color;
+            }
+        }
+    }
+    
+    @Test
+    public void rejectsCodesOutsideTheSpace() {
+        assertEquals(-1, CodeSpace.CLASSIC.indexOf(Scorer.encode(0, 0, 1, 2))); //repeated color
+        assertEquals(-1, CodeSpace.CLASSIC.indexOf(Scorer.encode(0, 1, 2, 6))); //unknown color
+        assertEquals(-1, new CodeSpace(4, 6, true).indexOf(Scorer.encode(0, 1, 2, 7)));
+    }
+    
+    @Test
+    public void parsesAndFormatsCodes() {
+        CodeSpace space = new CodeSpace(5, 12, true);
+        int code = space.parseCode("0a5b1");
+        assertEquals(Scorer.encode(0, 10, 5, 11, 1), code);
+        assertEquals("0a5b1", space.formatCode(code));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void parseRejectsRepeatedColor() {
+        CodeSpace.CLASSIC.parseCode("0012");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void parseRejectsWrongLength() {
+        CodeSpace.CLASSIC.parseCode("012");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooFewColorsWithoutRepeats() {
+        new CodeSpace(4, 3);
+    }
+    
+    @Test
+    public void sharesFeedbackTablePerSpace() {
+        assertSame(FeedbackTable.of(new CodeSpace(4, 6)), FeedbackTable.of(CodeSpace.CLASSIC));
+    }
+    
+    @Test
+    public void feedbackTableMatchesScorer() {
+        CodeSpace space = new CodeSpace(3, 5, true);
+        FeedbackTable table = FeedbackTable.of(space);
+        assertTrue(table.isTabulated());
+        int[] secrets = new int[space.size()];
+        for (int i = 0; i < secrets.length; i++) {
+            secrets[i] = i;
+        }
+        byte[] feedback = new byte[secrets.length];
+        for (int g = 0; g < space.size(); g++) {
+            table.scoreAll(g, secrets, feedback);
+            for (int s = 0; s < space.size(); s++) {
+                int expected = Scorer.score(space.codeAt(s), space.codeAt(g), space.getPegs());
+                assertEquals(expected, table.score(g, s));
+                assertEquals(expected, feedback[s] & 0xFF);
+            }
+        }
+    }
+}
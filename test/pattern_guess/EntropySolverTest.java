@@ -0,0 +1,67 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * EntropySolverTest class
+ * Unit tests for EntropySolver.
+ */
+public class EntropySolverTest {
+    
+    @Test
+    public void solvesEveryClassicSecret() {
+        int[] guesses = new EntropySolver(CodeSpace.CLASSIC).solveAll();
+        long total = 0;
+        for (int g : guesses) {
+            assertTrue(g >= 1 && g <= 6);
+            total += g;
+        }
+        assertTrue(total / (double)guesses.length < 4.2);
+    }
+    
+    @Test
+    public void poolSizeDoesNotChangeTheGuess() {
+        CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+        candidates.prune(0, Scorer.pack(1, 1));
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertEquals(new EntropySolver(CodeSpace.CLASSIC).nextGuess(candidates),
+                    new EntropySolver(CodeSpace.CLASSIC, single).nextGuess(candidates));
+        }
+        finally {
+            single.shutdown();
+        }
+    }
+}
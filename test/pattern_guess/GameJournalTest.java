@@ -0,0 +1,166 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * GameJournalTest class
+ * Round-trip tests for GameJournal and JournalReader.
+ */
+public class GameJournalTest {
+    private Path file;
+    
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("games", ".journal");
+        Files.delete(file); //the journal creates the file itself
+    }
+    
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Test
+    public void recordsRoundTrip() throws IOException {
+        BoardConfig config = new BoardConfig(5, 8, 10, true);
+        try (GameJournal journal = new GameJournal(file)) {
+            journal.start(7, config, Scorer.encode(1, 1, 2, 3, 7));
+            journal.guess(7, 1, Scorer.encode(0, 1, 2, 3, 4), Scorer.pack(3, 0));
+            journal.end(7, Game.Status.REVEALED, 1);
+            journal.start(8, BoardConfig.CLASSIC, Scorer.encode(0, 1, 2, 3));
+            journal.end(8, Game.Status.WON, 4);
+        }
+        List<String> records = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(file)) {
+            assertEquals(5, reader.replay(recorder(records)));
+            assertEquals(0, reader.getTruncated());
+        }
+        assertEquals("start 7 5 8 10 true " + Scorer.encode(1, 1, 2, 3, 7), records.get(0));
+        assertEquals("guess 7 1 " + Scorer.encode(0, 1, 2, 3, 4) + " " + Scorer.pack(3, 0), records.get(1));
+        assertEquals("end 7 REVEALED 1", records.get(2));
+        assertEquals("end 8 WON 4", records.get(4));
+    }
+    
+    @Test
+    public void appendsToAnExistingJournal() throws IOException {
+        try (GameJournal journal = new GameJournal(file)) {
+            journal.start(1, BoardConfig.CLASSIC, 0);
+        }
+        try (GameJournal journal = new GameJournal(file)) {
+            journal.end(1, Game.Status.LOST, 9);
+        }
+        List<String> records = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(file)) {
+            assertEquals(2, reader.replay(recorder(records)));
+        }
+        assertEquals("end 1 LOST 9", records.get(1));
+    }
+    
+    @Test
+    public void skipsRecordCutShort() throws IOException {
+        try (GameJournal journal = new GameJournal(file)) {
+            journal.start(1, BoardConfig.CLASSIC, 0);
+            journal.guess(1, 1, 0, Scorer.pack(4, 0));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3); //as if the process died mid-write
+        }
+        List<String> records = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(file)) {
+            assertEquals(1, reader.replay(recorder(records)));
+            assertEquals(GameJournal.GUESS_SIZE + 1 - 3, reader.getTruncated());
+        }
+    }
+    
+    @Test
+    public void rejectsUnknownStatus() throws IOException {
+        try (GameJournal journal = new GameJournal(file)) {
+            journal.start(1, BoardConfig.CLASSIC, 0);
+            journal.end(1, Game.Status.LOST, 9);
+        }
+        long end = GameJournal.HEADER_SIZE + 1 + GameJournal.START_SIZE; //offset of the END record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { (byte)0x80 }), end + 1 + 1 + 8); //its status byte
+        }
+        List<String> records = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(file)) {
+            reader.replay(recorder(records));
+            fail("Read an unknown status");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(file + " has an invalid game status in the record at byte " + end, e.getMessage());
+        }
+        assertEquals(1, records.size());
+    }
+    
+    @Test
+    public void noneWritesNothing() throws IOException {
+        GameJournal.NONE.start(1, BoardConfig.CLASSIC, 0);
+        GameJournal.NONE.flush();
+        assertFalse(Files.exists(file));
+    }
+    
+    /**
+     * @return a visitor that describes each record as a line of text
+     */
+    private static JournalReader.Visitor recorder(List<String> records) {
+        return new JournalReader.Visitor() {
+            @Override
+            public void start(long session, long millis, int pegs, int colors, int rows, boolean duplicates, int secretCode) {
+                records.add("start " + session + " " + pegs + " " + colors + " " + rows + " " + duplicates + " " + secretCode);
+            }
+            
+            @Override
+            public void guess(long session, int row, int guessCode, int feedback) {
+                records.add("guess " + session + " " + row + " " + guessCode + " " + feedback);
+            }
+            
+            @Override
+            public void end(long session, Game.Status status, int rows) {
+                records.add("end " + session + " " + status + " " + rows);
+            }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * GameLogTest class
+ * Unit tests for GameLog: the line format, rotation and dropped events.
+ */
+public class GameLogTest {
+    private Path directory;
+    
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("gamelog");
+    }
+    
+    @After
+    public void deleteDirectory() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+    
+    /**
+     * @return the lines of a log file without their timestamps
+     */
+    private List<String> read(String file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(directory.resolve(file), StandardCharsets.UTF_8)) {
+            lines.add(line.substring(line.indexOf(' ') + 1));
+        }
+        return lines;
+    }
+    
+    @Test
+    public void writesEventsInOrder() throws IOException {
+        try (GameLog log = new GameLog(directory, "games")) {
+            assertTrue(log.newGame(3, 200));
+            assertTrue(log.guess(3, 1, 50, Scorer.pack(1, 2)));
+            assertTrue(log.end(3, true, 2));
+            assertTrue(log.newGame(4, 7));
+            assertTrue(log.end(4, false, 9));
+            assertTrue(log.message(Level.INFO.intValue(), "two\nlines"));
+        }
+        List<String> lines = read("games.log");
+        assertEquals(6, lines.size());
+        assertEquals("NEW_GAME 3 200", lines.get(0));
+        assertEquals("GUESS 3 1 50 " + Scorer.pack(1, 2), lines.get(1));
+        assertEquals("WIN 3 2", lines.get(2));
+        assertEquals("NEW_GAME 4 7", lines.get(3));
+        assertEquals("LOSS 4 9", lines.get(4));
+        assertEquals("MESSAGE 0 " + Level.INFO.intValue() + " two lines", lines.get(5));
+    }
+    
+    @Test
+    public void rotatesFiles() throws IOException {
+        try (GameLog log = new GameLog(directory, "games", 128, 200, 2)) {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(log.newGame(i, i));
+            }
+        }
+        assertTrue(Files.exists(directory.resolve("games.1.log")));
+        assertTrue(Files.exists(directory.resolve("games.2.log")));
+        assertFalse(Files.exists(directory.resolve("games.3.log")));
+        for (String file : new String[] { "games.log", "games.1.log", "games.2.log" }) {
+            assertTrue(Files.size(directory.resolve(file)) <= 200);
+        }
+        List<String> newest = read("games.log");
+        assertEquals("NEW_GAME 99 99", newest.get(newest.size() - 1));
+        List<String> older = read("games.1.log");
+        int first = Integer.parseInt(newest.get(0).split(" ")[1]);
+        assertEquals("NEW_GAME " + (first - 1) + " " + (first - 1), older.get(older.size() - 1));
+    }
+    
+    @Test
+    public void dropsEventsWhileTheWriterIsBlocked() throws Exception {
+        //opening a named pipe for writing blocks until it has a reader, so the writer stalls on its first event
+        Path pipe = directory.resolve("games.log");
+        try {
+            Assume.assumeTrue(new ProcessBuilder("mkfifo", pipe.toString()).start().waitFor() == 0);
+        }
+        catch (IOException e) {
+            Assume.assumeNoException(e);
+        }
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        Thread reader = new Thread(() -> {
+            try (InputStream in = Files.newInputStream(pipe)) {
+                byte[] buffer = new byte[4096];
+                for (int n; (n = in.read(buffer)) >= 0; ) {
+                    written.write(buffer, 0, n);
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        List<String> expected = new ArrayList<>();
+        int refused = 0;
+        try (GameLog log = new GameLog(directory, "games", 4, GameLog.DEFAULT_MAX_BYTES, 0)) {
+            for (int i = 0; i < 20; i++) {
+                if (log.newGame(i, i)) expected.add("NEW_GAME " + i + " " + i);
+                else refused++;
+            }
+            //the ring holds 4 events, and the writer takes at most one before it blocks
+            assertTrue(expected.size() >= 4 && expected.size() <= 5);
+            assertEquals(refused, log.getDropped());
+            reader.start();
+        }
+        reader.join(5000);
+        expected.add("DROPPED 0 " + refused);
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(written.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            lines.add(line.substring(line.indexOf(' ') + 1));
+        }
+        assertEquals(expected, lines);
+    }
+    
+    @Test
+    public void countsEventsAfterClose() throws IOException {
+        GameLog log = new GameLog(directory, "games");
+        log.newGame(1, 1);
+        log.close();
+        assertFalse(log.newGame(2, 2));
+        assertFalse(log.message(Level.INFO.intValue(), "late"));
+        assertEquals(2, log.getDropped());
+        assertEquals(1, read("games.log").size());
+        assertFalse(GameLog.NONE.newGame(1, 1));
+    }
+    
+    @Test
+    public void bridgesLoggingRecords() throws IOException {
+        Logger logger = Logger.getLogger("pattern_guess.GameLogTest");
+        logger.setUseParentHandlers(false);
+        try (GameLog log = new GameLog(directory, "games")) {
+            logger.addHandler(log.handler());
+            logger.log(Level.WARNING, "row {0} failed", 3);
+            logger.log(Level.SEVERE, null, new IOException("disk full"));
+        }
+        finally {
+            for (Handler h : logger.getHandlers()) {
+                logger.removeHandler(h);
+            }
+        }
+        List<String> lines = read("games.log");
+        assertEquals("MESSAGE 0 " + Level.WARNING.intValue() + " pattern_guess.GameLogTest row 3 failed", lines.get(0));
+        assertEquals("MESSAGE 0 " + Level.SEVERE.intValue() + " pattern_guess.GameLogTest java.io.IOException: disk full", lines.get(1));
+    }
+}
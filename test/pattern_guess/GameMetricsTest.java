@@ -0,0 +1,101 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * GameMetricsTest class
+ * Unit tests for GameMetrics and LatencyHistogram.
+ */
+public class GameMetricsTest {
+    private static final long SECOND = 1000000000L;
+    
+    @Test
+    public void countsGames() {
+        GameMetrics metrics = new GameMetrics();
+        metrics.gameStarted();
+        metrics.gameStarted();
+        metrics.gameEnded(true, 3);
+        metrics.gameEnded(false, 40);
+        assertEquals(2, metrics.getGamesStarted());
+        assertEquals(1, metrics.getGamesWon());
+        assertEquals(1, metrics.getGamesLost());
+        assertEquals(1, metrics.getGuessesPerGame()[3]);
+        assertEquals(1, metrics.getGuessesPerGame()[GameMetrics.MAX_GUESSES]);
+        metrics.reset();
+        assertArrayEquals(new long[GameMetrics.MAX_GUESSES + 1], metrics.getGuessesPerGame());
+    }
+    
+    @Test
+    public void scoringRateComesFromSamples() {
+        GameMetrics metrics = new GameMetrics();
+        assertEquals(0, metrics.getScoringCallsPerSecond(), 0);
+        metrics.sample(0);
+        metrics.scored(500);
+        metrics.sample(SECOND);
+        assertEquals(500, metrics.getScoringCallsPerSecond(), 1e-9);
+        assertEquals(500, metrics.getScoringCallsPerSecond(), 1e-9); //reading doesn't reset the window
+        assertEquals(500, metrics.getScoringCalls());
+    }
+    
+    @Test
+    public void scoringRateCoversOnlyTheWindow() {
+        GameMetrics metrics = new GameMetrics();
+        metrics.scored(1000000);
+        long now = 0;
+        metrics.sample(now);
+        for (int i = 0; i < GameMetrics.RATE_WINDOW_SECONDS * 2; i++) {
+            metrics.scored(10);
+            metrics.sample(now += SECOND);
+        }
+        assertEquals(10, metrics.getScoringCallsPerSecond(), 1e-9); //the early burst has left the window
+    }
+    
+    @Test
+    public void histogramPercentilesAreWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500000, histogram.percentile(0.5), 500000 * 0.125);
+        assertEquals(990000, histogram.percentile(0.99), 990000 * 0.125);
+        assertEquals(1000, histogram.summary().getMaxMicros(), 1e-9);
+        assertEquals(500.5, histogram.summary().getMeanMicros(), 1e-9);
+        histogram.record(-5);
+        assertEquals(0, histogram.percentile(0));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.summary().getP99Micros(), 0);
+    }
+}
@@ -0,0 +1,137 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * GameServerTest class
+ * Unit tests for Game, and for GameServer over a real socket.
+ */
+public class GameServerTest {
+    private GameServer server;
+    
+    @Before
+    public void startServer() throws IOException {
+        server = new GameServer(BoardConfig.CLASSIC, new SecretGenerator(CodeSpace.CLASSIC, 3), 0);
+        Thread thread = new Thread(server, "game-server-test");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+    
+    @Test
+    public void gameEndsWhenWonOrRowsRunOut() {
+        int secret = CodeSpace.CLASSIC.codeAt(17);
+        Game won = new Game(BoardConfig.CLASSIC, 17);
+        assertEquals(Scorer.pack(4, 0), won.guess(secret));
+        assertEquals(Game.Status.WON, won.getStatus());
+        Game lost = new Game(new BoardConfig(4, 6, 2, false), 17);
+        lost.guess(CodeSpace.CLASSIC.codeAt(0));
+        assertEquals(Game.Status.PLAYING, lost.getStatus());
+        lost.guess(CodeSpace.CLASSIC.codeAt(1));
+        assertEquals(Game.Status.LOST, lost.getStatus());
+        assertEquals(2, lost.getRows());
+        assertEquals(1, lost.getGuess(1));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void rejectsGuessAfterGameOver() {
+        Game game = new Game(BoardConfig.CLASSIC, 0);
+        game.guess(CodeSpace.CLASSIC.codeAt(0));
+        game.guess(CodeSpace.CLASSIC.codeAt(1));
+    }
+    
+    @Test
+    public void playsAGameOverHttp() throws IOException {
+        String created = request("POST", "/games", 201);
+        assertTrue(created, created.startsWith("{\"id\":1,"));
+        MinimaxSolver solver = new MinimaxSolver(CodeSpace.CLASSIC);
+        CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+        String response;
+        do {
+            int guess = solver.nextGuess(candidates);
+            response = request("POST", "/games/1/guess/" + CodeSpace.CLASSIC.formatCode(CodeSpace.CLASSIC.codeAt(guess)), 200);
+            int exact = Integer.parseInt(response.replaceAll(".*\"exact\":(\\d+).*", "$1"));
+            int partial = Integer.parseInt(response.replaceAll(".*\"partial\":(\\d+).*", "$1"));
+            candidates.prune(guess, Scorer.pack(exact, partial));
+        } while (response.contains("PLAYING"));
+        assertTrue(response, response.contains("\"status\":\"WON\""));
+        assertTrue(request("GET", "/games/1", 200).contains("\"secret\":"));
+        assertEquals("{\"error\":\"The game is over\"}", request("POST", "/games/1/guess/0123", 409));
+        assertEquals("{\"id\":1}", request("DELETE", "/games/1", 200));
+        request("GET", "/games/1", 404);
+    }
+    
+    @Test
+    public void reportsBadRequestsAsJson() throws IOException {
+        request("POST", "/games", 201);
+        String error = request("POST", "/games/1/guess/0012", 400);
+        assertTrue(error, error.startsWith("{\"error\":\"Not a valid code"));
+        assertTrue(request("GET", "/games/x", 400).startsWith("{\"error\":"));
+    }
+    
+    @Test
+    public void escapesJsonStrings() {
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\"", GameServer.appendJsonString(new StringBuilder(), "a\"b\\c\nd\u0001").toString());
+    }
+    
+    /**
+     * Makes a request and checks its status
+     * @return the response body
+     */
+    private String request(String method, String path, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        assertEquals(method + " " + path, expectedStatus, connection.getResponseCode());
+        try (InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                body.write(buffer, 0, n);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * GameSnapshotTest class
+ * Unit tests for GameSnapshot.
+ */
+public class GameSnapshotTest {
+    private final CodeSpace space = CodeSpace.CLASSIC;
+    private final int secret = space.codeAt(250);
+    
+    @Test
+    public void movesReturnNewSnapshots() {
+        GameSnapshot start = GameSnapshot.start(BoardConfig.CLASSIC, 1, secret);
+        GameSnapshot placed = start.withPeg(3);
+        assertEquals(0, start.getPlaced());
+        assertEquals(1, placed.getPlaced());
+        assertEquals(3, placed.getColorAt(0));
+        assertTrue(placed.isPlaced(3));
+        assertSame(start.withoutPegs(), start);
+        assertEquals(0, placed.withoutPegs().getPlaced());
+    }
+    
+    @Test
+    public void feedbackEndsTheGame() {
+        GameSnapshot won = guess(GameSnapshot.start(BoardConfig.CLASSIC, 1, secret), secret);
+        assertEquals(Game.Status.WON, won.getStatus());
+        assertTrue(won.isOver());
+        GameSnapshot game = GameSnapshot.start(new BoardConfig(4, 6, 2, false), 1, secret);
+        game = guess(game, space.codeAt(0));
+        assertEquals(Game.Status.PLAYING, game.getStatus());
+        game = guess(game, space.codeAt(1));
+        assertEquals(Game.Status.LOST, game.getStatus());
+        assertEquals(2, game.getRows());
+        assertEquals(space.codeAt(0), game.getRow(0).getGuessCode());
+        assertSame(game.getRow(0), game.getLastRow().getPrevious());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void rejectsPegAfterSolutionShown() {
+        GameSnapshot.start(BoardConfig.CLASSIC, 1, secret).withSolutionShown().withPeg(0);
+    }
+    
+    @Test
+    public void candidatesMatchReplayedRows() {
+        GameSnapshot game = GameSnapshot.start(BoardConfig.CLASSIC, 1, secret);
+        CandidateIndex replayed = new CandidateIndex(space);
+        FeedbackTable table = FeedbackTable.of(space);
+        for (int guess : new int[] {0, 100, 200}) {
+            game = guess(game, space.codeAt(guess));
+            replayed.prune(guess, table.score(guess, 250));
+            CandidateIndex candidates = game.getCandidates();
+            assertEquals(replayed.remaining(), candidates.remaining());
+            assertEquals(replayed.rows(), candidates.rows());
+            for (int i = 0; i < space.size(); i++) {
+                assertEquals(replayed.contains(i), candidates.contains(i));
+            }
+        }
+    }
+    
+    @Test
+    public void candidatesAreDerivedOncePerRow() {
+        GameSnapshot first = guess(GameSnapshot.start(BoardConfig.CLASSIC, 1, secret), space.codeAt(0));
+        GameSnapshot placed = first.withPeg(1).withPeg(2);
+        assertSame(first.getCandidates(), placed.getCandidates());
+        GameSnapshot second = guess(first, space.codeAt(77));
+        assertTrue(second.getCandidates().remaining() <= first.getCandidates().remaining());
+        assertEquals(1, first.getCandidates().rows()); //deriving the next row leaves the earlier index alone
+        assertFalse(second.getCandidates() == first.getCandidates());
+    }
+    
+    @Test
+    public void threadsShareOneDerivedIndex() throws Exception {
+        GameSnapshot game = guess(guess(GameSnapshot.start(BoardConfig.CLASSIC, 1, secret), space.codeAt(0)), space.codeAt(9));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<CandidateIndex>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(game::getCandidates));
+            }
+            for (Future<CandidateIndex> result : results) {
+                assertSame(game.getCandidates(), result.get());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Places the pegs of a guess and gives its feedback
+     */
+    private GameSnapshot guess(GameSnapshot game, int guessCode) {
+        for (int i = 0; i < space.getPegs(); i++) {
+            game = game.withPeg(Scorer.colorAt(guessCode, i));
+        }
+        return game.withFeedback(Scorer.score(secret, guessCode, space.getPegs()));
+    }
+}
@@ -0,0 +1,81 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * HintSearchTest class
+ * Unit tests for HintSearch.
+ */
+public class HintSearchTest {
+    
+    @Test
+    public void zeroBudgetGuessesFirstCandidate() {
+        CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+        candidates.prune(0, FeedbackTable.of(CodeSpace.CLASSIC).score(0, 200));
+        assertEquals(candidates.first(), new HintSearch(0, TimeUnit.MILLISECONDS).nextGuess(candidates));
+    }
+    
+    @Test
+    public void solvesClassicSecrets() {
+        HintSearch search = new HintSearch(1, TimeUnit.SECONDS);
+        FeedbackTable table = FeedbackTable.of(CodeSpace.CLASSIC);
+        for (int secret = 0; secret < CodeSpace.CLASSIC.size(); secret += 37) {
+            CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+            int rows = 1;
+            for (int guess = search.nextGuess(candidates); guess != secret; guess = search.nextGuess(candidates), rows++) {
+                candidates.prune(guess, table.score(guess, secret));
+            }
+            assertTrue(rows <= 6);
+        }
+    }
+    
+    @Test
+    public void keepsToBudgetOnLargeBoards() {
+        CodeSpace space = new CodeSpace(7, 12, true); //36M codes
+        CandidateIndex candidates = new CandidateIndex(space);
+        HintSearch search = new HintSearch(50, TimeUnit.MILLISECONDS);
+        search.nextGuess(candidates); //warm up
+        long start = System.nanoTime();
+        int guess = search.nextGuess(candidates);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(guess >= 0 && guess < space.size());
+        assertTrue("took " + elapsed + " ms", elapsed < 500);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeBudget() {
+        new HintSearch(-1, TimeUnit.MILLISECONDS);
+    }
+}
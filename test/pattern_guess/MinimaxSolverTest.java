@@ -0,0 +1,76 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * MinimaxSolverTest class
+ * Unit tests for MinimaxSolver.
+ */
+public class MinimaxSolverTest {
+    
+    @Test
+    public void solvesEveryClassicSecretWithinFiveGuesses() {
+        int[] guesses = new MinimaxSolver(CodeSpace.CLASSIC).solveAll();
+        assertEquals(CodeSpace.CLASSIC.size(), guesses.length);
+        for (int g : guesses) {
+            assertTrue(g >= 1 && g <= 5);
+        }
+    }
+    
+    @Test
+    public void solvesBoardsWithRepeatedColors() {
+        CodeSpace space = new CodeSpace(3, 4, true);
+        MinimaxSolver solver = new MinimaxSolver(space);
+        for (int secret = 0; secret < space.size(); secret++) {
+            assertTrue(solver.solve(secret) <= 4);
+        }
+    }
+    
+    @Test
+    public void guessesTheLastCandidate() {
+        CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+        int secret = 123;
+        int guess = new MinimaxSolver(CodeSpace.CLASSIC).nextGuess(candidates);
+        while (candidates.remaining() > 1) {
+            candidates.prune(guess, FeedbackTable.of(CodeSpace.CLASSIC).score(guess, secret));
+            guess = candidates.first();
+        }
+        assertEquals(secret, new MinimaxSolver(CodeSpace.CLASSIC).nextGuess(candidates));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSecretOutsideTheSpace() {
+        new MinimaxSolver(CodeSpace.CLASSIC).solveCode(Scorer.encode(0, 0, 0, 0));
+    }
+}
@@ -0,0 +1,133 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * OptimalSolverTest class
+ * Unit tests for OptimalSolver, DecisionTreeBuilder and DecisionTree.
+ */
+public class OptimalSolverTest {
+    
+    @Test
+    public void matchesExhaustiveSearchOnSmallBoards() {
+        CodeSpace[] spaces = {new CodeSpace(2, 3, true), new CodeSpace(3, 3, true), new CodeSpace(2, 5, true), new CodeSpace(3, 4)};
+        for (CodeSpace space : spaces) {
+            int exhaustive = exhaustiveCost(FeedbackTable.of(space), new CandidateIndex(space), new HashMap<>());
+            assertEquals(space.toString(), exhaustive, new OptimalSolver(space).cost(new CandidateIndex(space)));
+        }
+    }
+    
+    @Test
+    public void playsItsOwnCost() {
+        CodeSpace space = new CodeSpace(3, 4, true);
+        OptimalSolver solver = new OptimalSolver(space);
+        Simulator simulator = new Simulator(space, solver, 64);
+        CandidateIndex candidates = new CandidateIndex(space);
+        long total = 0;
+        for (int secret = 0; secret < space.size(); secret++) {
+            total += simulator.play(secret, candidates);
+        }
+        assertEquals(solver.cost(new CandidateIndex(space)), total);
+    }
+    
+    @Test
+    public void beatsEntropyOnTheClassicBoard() throws IOException {
+        Path file = Files.createTempFile("optimal", ".tree");
+        Path entropyFile = Files.createTempFile("entropy", ".tree");
+        try {
+            DecisionTreeBuilder optimal = new DecisionTreeBuilder(CodeSpace.CLASSIC, new OptimalSolver(CodeSpace.CLASSIC));
+            optimal.write(file);
+            DecisionTreeBuilder entropy = new DecisionTreeBuilder(CodeSpace.CLASSIC, new EntropySolver(CodeSpace.CLASSIC));
+            entropy.write(entropyFile);
+            assertTrue(optimal.getMeanGuesses() <= entropy.getMeanGuesses());
+            DecisionTree tree = new DecisionTree(file, new MinimaxSolver(CodeSpace.CLASSIC));
+            Simulator simulator = new Simulator(BoardConfig.CLASSIC, tree);
+            CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+            long total = 0;
+            for (int secret = 0; secret < CodeSpace.CLASSIC.size(); secret++) {
+                total += simulator.play(secret, candidates);
+            }
+            assertEquals(optimal.getMeanGuesses(), total / (double)CodeSpace.CLASSIC.size(), 1e-9); //the mapped tree plays as built
+        }
+        finally {
+            Files.delete(file);
+            Files.delete(entropyFile);
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLargeBoards() {
+        new OptimalSolver(new CodeSpace(5, 8));
+    }
+    
+    /**
+     * Tries every guess at every level, with no bounds
+     * @return the least total number of guesses to find every candidate
+     */
+    private static int exhaustiveCost(FeedbackTable table, CandidateIndex candidates, Map<String, Integer> memo) {
+        int n = candidates.remaining();
+        int[] set = new int[n];
+        candidates.copyTo(set);
+        String key = Arrays.toString(set);
+        Integer known = memo.get(key);
+        if (known != null) return known;
+        CodeSpace space = candidates.getSpace();
+        int win = Scorer.pack(space.getPegs(), 0);
+        int best = Integer.MAX_VALUE;
+        for (int g = 0; g < space.size(); g++) {
+            int[] counts = new int[win + 1];
+            for (int s : set) {
+                counts[table.score(g, s)]++;
+            }
+            int cost = n;
+            for (int f = 0; f < win && cost < Integer.MAX_VALUE; f++) {
+                if (counts[f] == n) cost = Integer.MAX_VALUE; //the guess tells nothing
+                else if (counts[f] > 0) {
+                    CandidateIndex next = new CandidateIndex(candidates);
+                    next.prune(g, f);
+                    cost += exhaustiveCost(table, next, memo);
+                }
+            }
+            best = Math.min(best, cost);
+        }
+        memo.put(key, best);
+        return best;
+    }
+}
@@ -0,0 +1,142 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * PatternGuessCliTest class
+ * Unit tests for the PatternGuessCli record parser, in text and binary form.
+ */
+public class PatternGuessCliTest {
+    private static final CodeSpace SPACE = new CodeSpace(4, 6, true);
+    
+    private static byte[] run(PatternGuessCli cli, byte[] input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        cli.run(Channels.newChannel(new ByteArrayInputStream(input)), Channels.newChannel(output));
+        return output.toByteArray();
+    }
+    
+    private static String runText(PatternGuessCli.Mode mode, String input) throws IOException {
+        PatternGuessCli cli = new PatternGuessCli(SPACE, mode, false,
+                mode == PatternGuessCli.Mode.SOLVE ? Simulator.strategy("minimax", SPACE) : null);
+        return new String(run(cli, input.getBytes(StandardCharsets.US_ASCII)), StandardCharsets.US_ASCII);
+    }
+    
+    private static void assertRejected(PatternGuessCli.Mode mode, String input, String message) throws IOException {
+        try {
+            runText(mode, input);
+            fail("Accepted " + input);
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+    
+    @Test
+    public void scoresTextRecords() throws IOException {
+        assertEquals("4 0\n0 0\n2 2\n0 3\n",
+                runText(PatternGuessCli.Mode.SCORE, "0123 0123\n0000,1111\r\n\n0123\t1023\n  1122 , 2311"));
+    }
+    
+    @Test
+    public void solvesTextRecords() throws IOException {
+        //the opening guess finds itself at once
+        String first = SPACE.formatCode(SPACE.codeAt(Simulator.strategy("minimax", SPACE).nextGuess(new CandidateIndex(SPACE))));
+        String[] results = runText(PatternGuessCli.Mode.SOLVE, first + "\n5432\n").split("\n");
+        assertEquals(2, results.length);
+        assertEquals(first + " 1 " + first, results[0]);
+        String[] fields = results[1].split(" ");
+        assertEquals("5432", fields[0]);
+        int guesses = Integer.parseInt(fields[1]);
+        assertTrue(guesses >= 1 && guesses <= 5);
+        assertEquals(guesses + 2, fields.length);
+        assertEquals("5432", fields[fields.length - 1]);
+    }
+    
+    @Test
+    public void rejectsBadText() throws IOException {
+        assertRejected(PatternGuessCli.Mode.SCORE, "0123 0123\n0123 x123\n", "Line 2: invalid character");
+        assertRejected(PatternGuessCli.Mode.SCORE, "012 0123\n", "Line 1: expected 4 pegs");
+        assertRejected(PatternGuessCli.Mode.SCORE, "0123\n", "Line 1: too few codes");
+        assertRejected(PatternGuessCli.Mode.SCORE, "0123 0123 0123\n", "Line 1: too many codes");
+        assertRejected(PatternGuessCli.Mode.SCORE, "0123 0126\n", "Line 1: not a valid code");
+    }
+    
+    @Test
+    public void scoresBinaryRecords() throws IOException {
+        //more records than fit one buffer, so some are cut by its end
+        int records = PatternGuessCli.BUFFER_SIZE / 8 * 3 + 5;
+        ByteBuffer input = ByteBuffer.allocate(records * 8);
+        byte[] expected = new byte[records];
+        for (int r = 0; r < records; r++) {
+            int secret = SPACE.codeAt(r % SPACE.size());
+            int guess = SPACE.codeAt(r * 7 % SPACE.size());
+            input.putInt(secret).putInt(guess);
+            expected[r] = (byte)Scorer.score(secret, guess, 4);
+        }
+        PatternGuessCli cli = new PatternGuessCli(SPACE, PatternGuessCli.Mode.SCORE, true, null);
+        assertArrayEquals(expected, run(cli, input.array()));
+    }
+    
+    @Test
+    public void solvesBinaryRecords() throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(8);
+        GuessStrategy strategy = Simulator.strategy("minimax", SPACE);
+        input.putInt(SPACE.codeAt(strategy.nextGuess(new CandidateIndex(SPACE)))).putInt(Scorer.encode(5, 4, 3, 2));
+        PatternGuessCli cli = new PatternGuessCli(SPACE, PatternGuessCli.Mode.SOLVE, true, strategy);
+        byte[] output = run(cli, input.array());
+        assertEquals(2, output.length);
+        assertEquals(1, output[0]);
+        assertTrue(output[1] >= 1 && output[1] <= 5);
+    }
+    
+    @Test
+    public void rejectsCutBinaryRecord() throws IOException {
+        PatternGuessCli cli = new PatternGuessCli(SPACE, PatternGuessCli.Mode.SCORE, true, null);
+        try {
+            run(cli, new byte[12]);
+            fail("Accepted a cut record");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Record 2 is cut short at the end of the input", e.getMessage());
+        }
+    }
+}
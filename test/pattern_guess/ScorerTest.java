@@ -0,0 +1,146 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * ScorerTest class
+ * Unit tests for Scorer, checked against a straightforward reference scorer.
+ */
+public class ScorerTest {
+    
+    @Test
+    public void scoresClassicExamples() {
+        int secret = Scorer.encode(0, 1, 2, 3);
+        assertEquals(Scorer.pack(4, 0), Scorer.score(secret, secret, 4));
+        assertEquals(Scorer.pack(0, 4), Scorer.score(secret, Scorer.encode(3, 2, 1, 0), 4));
+        assertEquals(Scorer.pack(2, 1), Scorer.score(secret, Scorer.encode(0, 1, 3, 5), 4));
+        assertEquals(Scorer.pack(0, 0), Scorer.score(secret, Scorer.encode(4, 5, 4, 5), 4));
+    }
+    
+    @Test
+    public void countsRepeatedColorsOnce() {
+        int secret = Scorer.encode(0, 0, 1, 1);
+        assertEquals(Scorer.pack(1, 1), Scorer.score(secret, Scorer.encode(0, 2, 0, 0), 4)); //only two 0s to match
+        assertEquals(Scorer.pack(0, 2), Scorer.score(secret, Scorer.encode(1, 2, 2, 0), 4));
+        assertEquals(Scorer.pack(2, 2), Scorer.score(secret, Scorer.encode(1, 0, 0, 1), 4));
+    }
+    
+    @Test
+    public void matchesReferenceOnRandomCodes() {
+        Random random = new Random(42);
+        for (int pegs = 1; pegs <= Scorer.MAX_PEGS; pegs++) {
+            for (int trial = 0; trial < 2000; trial++) {
+                int colors = 1 + random.nextInt(Scorer.MAX_COLORS);
+                int[] secret = randomColors(random, pegs, colors);
+                int[] guess = randomColors(random, pegs, colors);
+                int feedback = Scorer.score(Scorer.encode(secret), Scorer.encode(guess), pegs);
+                assertEquals(referenceScore(secret, guess), feedback);
+                assertEquals(Scorer.score(Scorer.encode(guess), Scorer.encode(secret), pegs), feedback); //scoring is symmetric
+            }
+        }
+    }
+    
+    @Test
+    public void packsAndUnpacksFeedback() {
+        for (int exact = 0; exact <= Scorer.MAX_PEGS; exact++) {
+            for (int partial = 0; exact + partial <= Scorer.MAX_PEGS; partial++) {
+                int feedback = Scorer.pack(exact, partial);
+                assertEquals(exact, Scorer.exact(feedback));
+                assertEquals(partial, Scorer.partial(feedback));
+                assertTrue(feedback < Scorer.feedbackLimit(Scorer.MAX_PEGS));
+            }
+        }
+        assertTrue(Scorer.isWin(Scorer.pack(4, 0), 4));
+        assertFalse(Scorer.isWin(Scorer.pack(3, 0), 4));
+        assertFalse(Scorer.isWin(Scorer.pack(4, 0), 5));
+    }
+    
+    @Test
+    public void encodesColorsByPosition() {
+        int code = Scorer.encode(5, 15, 0, 7);
+        assertEquals(5, Scorer.colorAt(code, 0));
+        assertEquals(15, Scorer.colorAt(code, 1));
+        assertEquals(0, Scorer.colorAt(code, 2));
+        assertEquals(7, Scorer.colorAt(code, 3));
+        assertEquals(Scorer.encode(5, 15, 9, 7), Scorer.withColor(code, 2, 9));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyPegs() {
+        Scorer.encode(new int[Scorer.MAX_PEGS + 1]);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownColor() {
+        Scorer.encode(0, Scorer.MAX_COLORS);
+    }
+    
+    private static int[] randomColors(Random random, int pegs, int colors) {
+        int[] code = new int[pegs];
+        for (int i = 0; i < pegs; i++) {
+            code[i] = random.nextInt(colors);
+        }
+        return code;
+    }
+    
+    /**
+     * Scores a guess the way the original board did: mark exact matches first, then match
+     * each remaining guess peg against the first unmarked secret peg of the same color
+     */
+    private static int referenceScore(int[] secret, int[] guess) {
+        boolean[] used = new boolean[secret.length];
+        boolean[] matched = new boolean[guess.length];
+        int exact = 0;
+        for (int i = 0; i < guess.length; i++) {
+            if (guess[i] == secret[i]) {
+                used[i] = matched[i] = true;
+                exact++;
+            }
+        }
+        int partial = 0;
+        for (int i = 0; i < guess.length; i++) {
+            if (matched[i]) continue;
+            for (int j = 0; j < secret.length; j++) {
+                if (!used[j] && guess[i] == secret[j]) {
+                    used[j] = true;
+                    partial++;
+                    break;
+                }
+            }
+        }
+        return Scorer.pack(exact, partial);
+    }
+}
@@ -0,0 +1,88 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * SecretGeneratorTest class
+ * Unit tests for SecretGenerator.
+ */
+public class SecretGeneratorTest {
+    
+    @Test
+    public void seedReproducesSequence() {
+        SecretGenerator a = new SecretGenerator(CodeSpace.CLASSIC, 12345);
+        SecretGenerator b = new SecretGenerator(CodeSpace.CLASSIC, 12345);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextIndex(), b.nextIndex());
+        }
+        assertFalse(Arrays.equals(new SecretGenerator(CodeSpace.CLASSIC, 1).indices(100).toArray(),
+                new SecretGenerator(CodeSpace.CLASSIC, 2).indices(100).toArray()));
+    }
+    
+    @Test
+    public void streamsMatchSequentialDraws() {
+        SecretGenerator sequential = new SecretGenerator(CodeSpace.CLASSIC, 99);
+        int[] expected = new int[10000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = sequential.nextIndex();
+        }
+        assertArrayEquals(expected, new SecretGenerator(CodeSpace.CLASSIC, 99).indices(expected.length).parallel().toArray());
+        SecretGenerator lookup = new SecretGenerator(CodeSpace.CLASSIC, 99);
+        long start = lookup.reserve(expected.length);
+        assertEquals(expected[1234], lookup.indexAt(start + 1234));
+    }
+    
+    @Test
+    public void drawsEveryCodeInRange() {
+        CodeSpace space = new CodeSpace(3, 3, true);
+        int[] counts = new int[space.size()];
+        new SecretGenerator(space, 5).indices(space.size() * 1000).forEach(i -> counts[i]++);
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200); //roughly uniform
+        }
+        new SecretGenerator(space, 5).codes(100).forEach(code -> assertTrue(space.indexOf(code) >= 0));
+    }
+    
+    @Test
+    public void splitDependsOnlyOnSeedAndPosition() {
+        SecretGenerator a = new SecretGenerator(CodeSpace.CLASSIC, 8);
+        SecretGenerator b = new SecretGenerator(CodeSpace.CLASSIC, 8);
+        assertEquals(a.split().getSeed(), b.split().getSeed());
+        a.nextIndex();
+        assertFalse(a.split().getSeed() == b.split().getSeed());
+    }
+}
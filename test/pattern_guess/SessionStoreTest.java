@@ -0,0 +1,145 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * SessionStoreTest class
+ * Unit tests for SessionStore, including recovery from torn records.
+ */
+public class SessionStoreTest {
+    private static final int RECORD_SIZE = 16 + 8 * BoardConfig.CLASSIC.getRows();
+    private static final int HEADER_SIZE = 64;
+    private final FeedbackTable table = FeedbackTable.of(CodeSpace.CLASSIC);
+    private Path file;
+    
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("sessions", ".store");
+        Files.delete(file); //the store creates the file itself
+    }
+    
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Test
+    public void gamesSurviveReopening() throws IOException {
+        long id;
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            id = store.create(200);
+            append(store, id, 200, 0);
+            append(store, id, 200, 50);
+        }
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            assertEquals(0, store.getRepaired());
+            Game game = store.load(id);
+            assertEquals(200, game.getSecretIndex());
+            assertEquals(2, game.getRows());
+            assertEquals(50, game.getGuess(1));
+            assertEquals(Game.Status.PLAYING, game.getStatus());
+        }
+    }
+    
+    @Test
+    public void idsOfDeletedGamesAreNotReused() throws IOException {
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            store.create(1);
+            long last = store.create(2);
+            store.delete(last);
+            assertNull(store.load(last));
+        }
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            assertEquals(3, store.getNextId());
+            assertEquals(3, store.create(3));
+        }
+    }
+    
+    @Test
+    public void recoveryKeepsIntactRowsAndRecomputesStatus() throws IOException {
+        long id;
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            id = store.create(100);
+            append(store, id, 100, 0);
+            append(store, id, 100, 1);
+            append(store, id, 100, 100); //wins
+        }
+        overwrite(HEADER_SIZE + id * RECORD_SIZE + 16 + 8 + 4, 0x12345678); //tear the second row's checksum
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            assertEquals(1, store.getRepaired());
+            Game game = store.load(id);
+            assertEquals(1, game.getRows());
+            assertEquals(Game.Status.PLAYING, game.getStatus());
+        }
+    }
+    
+    @Test
+    public void recoveryDropsUnfinishedRecords() throws IOException {
+        long id;
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            id = store.create(7);
+        }
+        overwrite(HEADER_SIZE + id * RECORD_SIZE + 12, 0); //the record's checksum never made it
+        try (SessionStore store = new SessionStore(file, BoardConfig.CLASSIC)) {
+            assertEquals(1, store.getRepaired());
+            assertNull(store.load(id));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsStoreForAnotherBoard() throws IOException {
+        new SessionStore(file, BoardConfig.CLASSIC).close();
+        new SessionStore(file, new BoardConfig(5, 8, 9, false)).close();
+    }
+    
+    private void append(SessionStore store, long id, int secret, int guess) throws IOException {
+        int feedback = table.score(guess, secret);
+        store.append(id, guess, feedback, Scorer.isWin(feedback, 4) ? Game.Status.WON : Game.Status.PLAYING);
+    }
+    
+    private void overwrite(long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(4).putInt(0, value);
+            channel.write(b, position);
+        }
+    }
+}
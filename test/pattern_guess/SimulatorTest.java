@@ -0,0 +1,79 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * SimulatorTest class
+ * Unit tests for Simulator and SimulationStats.
+ */
+public class SimulatorTest {
+    
+    @Test
+    public void countsEveryGame() {
+        Simulator simulator = new Simulator(BoardConfig.CLASSIC, Simulator.strategy("minimax", CodeSpace.CLASSIC));
+        SimulationStats stats = simulator.run(3000, new SecretGenerator(CodeSpace.CLASSIC, 1), null);
+        assertEquals(3000, stats.getGames());
+        assertEquals(3000, stats.getWins());
+        assertEquals(0, stats.getLosses());
+        long total = 0;
+        for (int g = 1; g <= BoardConfig.CLASSIC.getRows(); g++) {
+            total += stats.getWins(g);
+        }
+        assertEquals(3000, total);
+        assertTrue(stats.getMeanGuesses() > 1 && stats.getMeanGuesses() < 5);
+    }
+    
+    @Test
+    public void sameSeedPlaysTheSameGames() {
+        Simulator simulator = new Simulator(BoardConfig.CLASSIC, Simulator.strategy("first", CodeSpace.CLASSIC));
+        SimulationStats a = simulator.run(5000, new SecretGenerator(CodeSpace.CLASSIC, 7), null);
+        SimulationStats b = simulator.run(5000, new SecretGenerator(CodeSpace.CLASSIC, 7), null);
+        for (int g = 1; g <= BoardConfig.CLASSIC.getRows(); g++) {
+            assertEquals(a.getWins(g), b.getWins(g));
+        }
+    }
+    
+    @Test
+    public void losesWhenRowsRunOut() {
+        Simulator simulator = new Simulator(CodeSpace.CLASSIC, Simulator.strategy("first", CodeSpace.CLASSIC), 1);
+        CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+        assertEquals(1, simulator.play(0, candidates));
+        assertEquals(0, simulator.play(1, candidates));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownStrategy() {
+        Simulator.strategy("random", CodeSpace.CLASSIC);
+    }
+}
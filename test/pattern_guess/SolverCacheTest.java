@@ -0,0 +1,96 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * SolverCacheTest class
+ * Unit tests for SolverCache and CachingStrategy.
+ */
+public class SolverCacheTest {
+    private final FeedbackTable table = FeedbackTable.of(CodeSpace.CLASSIC);
+    
+    @Test
+    public void rowOrderDoesNotMatter() {
+        SolverCache cache = new SolverCache(16, 1);
+        cache.put(rows(5, 9), 42);
+        assertEquals(42, cache.get(rows(9, 5)));
+        assertEquals(-1, cache.get(rows(5)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+    
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        SolverCache cache = new SolverCache(2, 1);
+        cache.put(rows(1), 1);
+        cache.put(rows(2), 2);
+        cache.get(rows(1)); //now 2 is the least recently used
+        cache.put(rows(3), 3);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.get(rows(1)));
+        assertEquals(-1, cache.get(rows(2)));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    public void cachingStrategyAsksOncePerHistory() {
+        int[] calls = new int[1];
+        CachingStrategy strategy = new CachingStrategy(candidates -> {
+            calls[0]++;
+            return candidates.first();
+        });
+        int first = strategy.nextGuess(rows(7));
+        assertEquals(first, strategy.nextGuess(rows(7)));
+        assertEquals(1, calls[0]);
+        strategy.nextGuess(rows(8));
+        assertEquals(2, calls[0]);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsStripesThatAreNotAPowerOfTwo() {
+        new SolverCache(16, 3);
+    }
+    
+    /**
+     * @return the candidates after guessing each of the given codes against secret 300
+     */
+    private CandidateIndex rows(int... guesses) {
+        CandidateIndex candidates = new CandidateIndex(CodeSpace.CLASSIC);
+        for (int guess : guesses) {
+            candidates.prune(guess, table.score(guess, 300));
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,157 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import org.junit.After;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * StrategyEvaluatorTest class
+ * Unit tests for StrategyEvaluator, including resuming a sweep from its checkpoint.
+ */
+public class StrategyEvaluatorTest {
+    //two chunks of secrets, the second of them partial
+    private static final BoardConfig CONFIG = new BoardConfig(5, 6, 10, true);
+    private final GuessStrategy strategy = Simulator.strategy("first", CONFIG.getSpace());
+    private Path report;
+    private Path checkpoint;
+    
+    @Before
+    public void createFile() throws IOException {
+        report = Files.createTempFile("sweep", ".csv");
+        checkpoint = report.resolveSibling(report.getFileName() + ".checkpoint");
+    }
+    
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(report);
+        Files.deleteIfExists(checkpoint);
+    }
+    
+    @Test
+    public void reportsEverySecret() throws IOException {
+        StrategyEvaluator evaluator = new StrategyEvaluator(CONFIG, strategy);
+        StrategyEvaluator.Summary summary = evaluator.evaluate(report, "first", null);
+        CodeSpace space = CONFIG.getSpace();
+        assertEquals(space.size(), summary.getSecrets());
+        assertEquals(0, summary.getUnsolved());
+        assertFalse(Files.exists(checkpoint));
+        List<String> lines = Files.readAllLines(report, StandardCharsets.US_ASCII);
+        assertEquals("secret,code,guesses,won", lines.get(0));
+        assertEquals(space.size() + 1, lines.size());
+        long[] counts = new long[StrategyEvaluator.MAX_GUESSES + 1];
+        CandidateIndex candidates = new CandidateIndex(space);
+        for (int i = 0; i < space.size(); i++) {
+            int guesses = evaluator.play(i, candidates);
+            counts[guesses]++;
+            assertEquals(i + "," + space.formatCode(space.codeAt(i)) + "," + guesses + "," + (guesses <= CONFIG.getRows()),
+                    lines.get(i + 1));
+        }
+        long losses = 0;
+        for (int g = 1; g < counts.length; g++) {
+            assertEquals(counts[g], summary.getSecrets(g));
+            if (g > CONFIG.getRows()) losses += counts[g];
+        }
+        assertEquals(losses, summary.getLosses());
+    }
+    
+    @Test
+    public void resumesFromCheckpoint() throws IOException {
+        StrategyEvaluator evaluator = new StrategyEvaluator(CONFIG, strategy);
+        StrategyEvaluator.Summary whole = evaluator.evaluate(report, "first", null);
+        byte[] expected = Files.readAllBytes(report);
+        
+        //stop after the first chunk, with part of the second chunk's lines already written
+        List<String> lines = Files.readAllLines(report, StandardCharsets.US_ASCII);
+        long bytes = 0;
+        long[] counts = new long[StrategyEvaluator.MAX_GUESSES + 1];
+        for (int i = 0; i <= StrategyEvaluator.CHUNK_SIZE; i++) {
+            bytes += lines.get(i).length() + 1;
+            if (i > 0) counts[Integer.parseInt(lines.get(i).split(",")[2])]++;
+        }
+        try (OutputStream out = Files.newOutputStream(report)) {
+            out.write(expected, 0, (int)bytes);
+            out.write("4096,00000,9".getBytes(StandardCharsets.US_ASCII));
+        }
+        Properties saved = new Properties();
+        saved.setProperty("board", CONFIG.toString());
+        saved.setProperty("strategy", "first");
+        saved.setProperty("chunks", "1");
+        saved.setProperty("bytes", Long.toString(bytes));
+        StringBuilder guesses = new StringBuilder();
+        for (int g = 0; g < counts.length; g++) {
+            guesses.append(g > 0 ? "," : "").append(counts[g]);
+        }
+        saved.setProperty("guesses", guesses.toString());
+        try (OutputStream out = Files.newOutputStream(checkpoint)) {
+            saved.store(out, null);
+        }
+        
+        ByteArrayOutputStream progress = new ByteArrayOutputStream();
+        StrategyEvaluator.Summary resumed = evaluator.evaluate(report, "first", new PrintStream(progress, true));
+        assertTrue(progress.toString().startsWith("resuming at secret " + StrategyEvaluator.CHUNK_SIZE + " of "));
+        assertArrayEquals(expected, Files.readAllBytes(report));
+        assertFalse(Files.exists(checkpoint));
+        assertEquals(whole.getSecrets(), resumed.getSecrets());
+        for (int g = 1; g <= whole.getMaxGuesses(); g++) {
+            assertEquals(whole.getSecrets(g), resumed.getSecrets(g));
+        }
+    }
+    
+    @Test
+    public void ignoresCheckpointOfAnotherStrategy() throws IOException {
+        Properties saved = new Properties();
+        saved.setProperty("board", CONFIG.toString());
+        saved.setProperty("strategy", "minimax");
+        saved.setProperty("chunks", "1");
+        saved.setProperty("bytes", "0");
+        saved.setProperty("guesses", "0");
+        try (OutputStream out = Files.newOutputStream(checkpoint)) {
+            saved.store(out, null);
+        }
+        StrategyEvaluator.Summary summary = new StrategyEvaluator(CONFIG, strategy).evaluate(report, "first", null);
+        assertEquals(CONFIG.getSpace().size(), summary.getSecrets());
+        assertEquals(CONFIG.getSpace().size() + 1, Files.readAllLines(report, StandardCharsets.US_ASCII).size());
+    }
+}
@@ -0,0 +1,114 @@
+/* 
+ * Copyright (c) 2015, Rachel Orrell <rachel.orrell@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Rachel Orrell,  nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package pattern_guess;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * TournamentTest class
+ * Unit tests for Tournament: replayable results, ranking and forfeits.
+ */
+public class TournamentTest {
+    private static final CodeSpace SPACE = CodeSpace.CLASSIC;
+    
+    @Test
+    public void playsTheSeededSecrets() {
+        //more games than one batch, the last batch partial
+        int games = Tournament.GAMES_PER_BATCH * 2 + 10;
+        Tournament tournament = new Tournament(BoardConfig.CLASSIC, 1, TimeUnit.MINUTES);
+        tournament.add("first", Simulator.strategy("first", SPACE));
+        Tournament.Standing standing = tournament.run(games, 42, null).get(0);
+        
+        Simulator simulator = new Simulator(BoardConfig.CLASSIC, Simulator.strategy("first", SPACE));
+        SecretGenerator secrets = new SecretGenerator(SPACE, 42);
+        CandidateIndex candidates = new CandidateIndex(SPACE);
+        long wins = 0;
+        long guesses = 0;
+        for (int i = 0; i < games; i++) {
+            int g = simulator.play(secrets.indexAt(i), candidates);
+            if (g > 0) {
+                wins++;
+                guesses += g;
+            }
+        }
+        assertEquals(games, standing.getGames());
+        assertEquals(wins, standing.getWins());
+        assertEquals(games - wins, standing.getLosses());
+        assertEquals(0, standing.getForfeits());
+        assertEquals((double)guesses / wins, standing.getMeanGuesses(), 1e-9);
+    }
+    
+    @Test
+    public void ranksByWinsThenGuesses() {
+        Tournament tournament = new Tournament(BoardConfig.CLASSIC, 1, TimeUnit.MINUTES);
+        tournament.add("invalid", candidates -> -1);
+        tournament.add("first", Simulator.strategy("first", SPACE));
+        tournament.add("minimax", Simulator.strategy("minimax", SPACE));
+        List<Tournament.Standing> standings = tournament.run(300, 7, null);
+        assertEquals(3, standings.size());
+        Tournament.Standing invalid = standings.get(2);
+        assertEquals("invalid", invalid.getName());
+        assertEquals(300, invalid.getForfeits());
+        assertEquals(0, invalid.getWins());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(300, standings.get(i).getGames());
+        }
+        assertTrue(standings.get(0).getWins() > standings.get(1).getWins()
+                || standings.get(0).getWins() == standings.get(1).getWins()
+                && standings.get(0).getMeanGuesses() <= standings.get(1).getMeanGuesses());
+    }
+    
+    @Test
+    public void forfeitsMovesOverBudget() {
+        Tournament tournament = new Tournament(BoardConfig.CLASSIC, 1, TimeUnit.MILLISECONDS);
+        GuessStrategy first = Simulator.strategy("first", SPACE);
+        tournament.add("slow", candidates -> {
+            try {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return first.nextGuess(candidates);
+        });
+        Tournament.Standing slow = tournament.run(3, 1, null).get(0);
+        assertEquals(3, slow.getForfeits());
+        assertTrue(slow.getMaxMoveMicros() >= 20000);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroBudget() {
+        new Tournament(BoardConfig.CLASSIC, 0, TimeUnit.MILLISECONDS);
+    }
+}